@@ -0,0 +1,201 @@
+package tn.esprit.spring.caches;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Outcomes of mutating requests sent with an Idempotency-Key header, so a client retrying over
+ * a patchy network gets the first outcome back instead of running the request again.
+ *
+ * The first request with a key runs ; requests arriving with the same key meanwhile wait for
+ * its outcome (up to "wait", then 409). Outcomes are kept for the ttl, the least recently used
+ * completed one being dropped past max-size. A request that failed is not kept, so its retry
+ * runs again. Keys are scoped by the operation (method, path and path variables) they are used
+ * with, and a hash of the request body is kept with each : reusing a key with another body is
+ * answered 422.
+ *
+ * The outcome is kept serialized, not as the object the first request returned (often a managed
+ * entity) : every replay and waiter reads its own detached copy.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long waitMillis;
+    private final ObjectMapper objectMapper;
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter joined;
+    private final Counter evictions;
+
+    /* Access ordered, guarded by "this" */
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyStore(@Value("${idempotency.max-size:100000}") int maxSize,
+                            @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${idempotency.wait:PT30S}") Duration wait,
+                            MeterRegistry meterRegistry,
+                            ObjectMapper objectMapper) {
+        this.maxSize = maxSize;
+        this.objectMapper = objectMapper;
+        this.ttlNanos = ttl.toNanos();
+        this.waitMillis = wait.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                /* A running request is never dropped, its duplicates would run in parallel */
+                if (size() > IdempotencyStore.this.maxSize && eldest.getValue().completed) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.executed = Counter.builder("idempotency.requests").tag("result", "executed").register(meterRegistry);
+        this.replayed = Counter.builder("idempotency.requests").tag("result", "replayed").register(meterRegistry);
+        this.joined = Counter.builder("idempotency.requests").tag("result", "joined").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "idempotency").register(meterRegistry);
+        Gauge.builder("cache.size", this, IdempotencyStore::size).tag("cache", "idempotency")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action once per (operation, key) and returns its outcome, read back as the given
+     * type, to every request with that key and the same body (null when the request has none).
+     * Without a key the action simply runs.
+     */
+    public <T> T execute(String key, String operation, Object body, TypeReference<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String scopedKey = operation + " " + key;
+        byte[] bodyHash = hash(body);
+        Entry entry;
+        boolean first = false;
+        synchronized (this) {
+            entry = entries.get(scopedKey);
+            if (entry != null && entry.completed && System.nanoTime() - entry.expiresAt >= 0) {
+                entries.remove(scopedKey);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(bodyHash);
+                entries.put(scopedKey, entry);
+                first = true;
+            }
+        }
+        if (!MessageDigest.isEqual(entry.bodyHash, bodyHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "This " + HEADER + " was already used with another request body");
+        }
+        if (first) {
+            executed.increment();
+            return run(scopedKey, entry, action);
+        }
+        (entry.outcome.isDone() ? replayed : joined).increment();
+        byte[] outcome = await(entry.outcome);
+        try {
+            return objectMapper.readValue(outcome, type);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Cannot read back the outcome of " + operation, exception);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private <T> T run(String scopedKey, Entry entry, Supplier<T> action) {
+        T result;
+        byte[] serialized;
+        try {
+            result = action.get();
+            serialized = serialize(result);
+        } catch (RuntimeException | Error failure) {
+            synchronized (this) {
+                entries.remove(scopedKey, entry);
+            }
+            entry.outcome.completeExceptionally(failure);
+            throw failure;
+        }
+        synchronized (this) {
+            entry.completed = true;
+            entry.expiresAt = System.nanoTime() + ttlNanos;
+        }
+        entry.outcome.complete(serialized);
+        return result;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private byte[] hash(Object body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(serialize(body));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> outcome) {
+        try {
+            return outcome.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exception) {
+            /* The first request failed : its waiters fail the same way, and may retry */
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException exception) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still running");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static final class Entry {
+        final byte[] bodyHash;
+        final CompletableFuture<byte[]> outcome = new CompletableFuture<>();
+        /* Guarded by the store */
+        boolean completed;
+        long expiresAt;
+
+        Entry(byte[] bodyHash) {
+            this.bodyHash = bodyHash;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package tn.esprit.spring.caches;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded read-through cache in front of the skier primary-key lookup, evicting an entry past
+ * its ttl and, past max-size, an approximately least recently used one.
+ *
+ * Lookups are lock free : entries live in a ConcurrentHashMap and only stamp their own access
+ * time. Eviction samples a few entries from a cursor rotating over the map and drops the least
+ * recently used (or an expired) one; it runs on the put path, one thread at a time.
+ *
+ * Writers invalidate the skier they touched. Each invalidation bumps a generation, and a loader
+ * only stores its result when no invalidation happened while it was reading, so a lookup racing
+ * with a write never puts the old row back. The ttl bounds the staleness of writes made by
+ * other nodes.
+ */
+@Component
+public class SkierCache {
+
+    /* Entries compared on each eviction */
+    static final int EVICTION_SAMPLE = 8;
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    /* Guarded by evictionLock */
+    private Iterator<Map.Entry<Long, Entry>> evictionCursor;
+
+    public SkierCache(@Value("${skier.cache.max-size:10000}") int maxSize,
+                      @Value("${skier.cache.ttl:PT30S}") Duration ttl,
+                      MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("cache.gets").tag("cache", "skier").tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "skier").tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "skier")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, SkierCache::size).tag("cache", "skier")
+                .register(meterRegistry);
+    }
+
+    /* The cached skier, or null on a miss */
+    public Skier get(Long numSkier) {
+        Entry entry = entries.get(numSkier);
+        long now = System.nanoTime();
+        if (entry != null && entry.isExpired(now)) {
+            if (entries.remove(numSkier, entry)) {
+                evictions.increment();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.accessedAt = now;
+        hits.increment();
+        return entry.skier;
+    }
+
+    /* To be read before loading, and handed back to put */
+    public long generation() {
+        return generation.get();
+    }
+
+    /*
+     * Invalidations bump the generation before removing, so an entry stored here is either
+     * refused, taken back by the re-check below, or removed by the invalidation itself.
+     */
+    public void put(Long numSkier, Skier skier, long loadedAt) {
+        if (loadedAt != generation.get() || ttlNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        Entry entry = new Entry(skier, now + ttlNanos, now);
+        entries.put(numSkier, entry);
+        if (loadedAt != generation.get()) {
+            entries.remove(numSkier, entry);
+            return;
+        }
+        evictIfFull();
+    }
+
+    public void invalidate(Long numSkier) {
+        generation.incrementAndGet();
+        entries.remove(numSkier);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /* A cached skier embeds its subscription, which is updated without knowing its skier */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionSaved(SubscriptionSavedEvent event) {
+        if (event.getPrevious() != null) {
+            invalidateAll();
+        }
+    }
+
+    /* Whoever holds the lock evicts; the size is checked again once it is released */
+    private void evictIfFull() {
+        while (entries.size() > maxSize && evictionLock.tryLock()) {
+            try {
+                while (entries.size() > maxSize) {
+                    Map.Entry<Long, Entry> victim = sample(System.nanoTime());
+                    if (victim == null) {
+                        return;
+                    }
+                    if (entries.remove(victim.getKey(), victim.getValue())) {
+                        evictions.increment();
+                    }
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private Map.Entry<Long, Entry> sample(long now) {
+        Map.Entry<Long, Entry> victim = null;
+        for (int sampled = 0; sampled < EVICTION_SAMPLE; sampled++) {
+            if (evictionCursor == null || !evictionCursor.hasNext()) {
+                evictionCursor = entries.entrySet().iterator();
+                if (!evictionCursor.hasNext()) {
+                    break;
+                }
+            }
+            Map.Entry<Long, Entry> candidate = evictionCursor.next();
+            if (candidate.getValue().isExpired(now)) {
+                return candidate;
+            }
+            if (victim == null || candidate.getValue().accessedAt < victim.getValue().accessedAt) {
+                victim = candidate;
+            }
+        }
+        return victim;
+    }
+
+    private static final class Entry {
+
+        final Skier skier;
+        final long expiresAt;
+        /* Racy on purpose : the last writer wins, which is all an approximate LRU needs */
+        volatile long accessedAt;
+
+        Entry(Skier skier, long expiresAt, long accessedAt) {
+            this.skier = skier;
+            this.expiresAt = expiresAt;
+            this.accessedAt = accessedAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Skier and Subscription ids come from the pooled "id_generator" table (so inserts can be
+ * JDBC batched) instead of AUTO_INCREMENT. On start-up each generator row is moved past the
+ * ids already in use, so databases created with the former IDENTITY columns keep working.
+ * Alignment runs once the application is ready (schema generation has finished by then); a
+ * missing table or generator row is logged and skipped rather than failing the start-up.
+ */
+@Slf4j
+@Component
+public class IdGeneratorAligner {
+
+    /* Must match the allocationSize of the @TableGenerator mappings */
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void align() {
+        align("skier", "skier", "num_skier");
+        align("subscription", "subscription", "num_sub");
+    }
+
+    private void align(String generator, String table, String idColumn) {
+        try {
+            alignGenerator(generator, table, idColumn);
+        } catch (DataAccessException e) {
+            log.warn("Id generator " + generator + " not aligned: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void alignGenerator(String generator, String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class);
+        long next = (maxId == null ? 0 : maxId) + ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update(
+                "update id_generator set gen_value = ? where gen_name = ? and gen_value < ?", next, generator, next);
+        if (updated == 0) {
+            Integer rows = jdbcTemplate.queryForObject(
+                    "select count(*) from id_generator where gen_name = ?", Integer.class, generator);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("insert into id_generator (gen_name, gen_value) values (?, ?)", generator, next);
+            }
+        }
+        log.info("Id generator " + generator + " aligned after id " + maxId);
+    }
+}
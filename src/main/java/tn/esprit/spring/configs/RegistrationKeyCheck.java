@@ -0,0 +1,65 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registrations rely on the unique key (skier, course, week) to refuse duplicates. ddl-auto=update
+ * cannot add it to a table that already holds duplicates and only logs the failure, so the start-up
+ * is stopped here when no unique index covers these columns. Remove the duplicates first, keeping
+ * the oldest row of each course week :
+ * <pre>
+ * delete r from registration r join registration k
+ *   on k.skier_num_skier = r.skier_num_skier and k.course_num_course = r.course_num_course
+ *  and k.num_week = r.num_week and k.num_registration &lt; r.num_registration;
+ * alter table registration add constraint uk_registration_skier_course_week
+ *   unique (skier_num_skier, course_num_course, num_week);
+ * </pre>
+ */
+@Slf4j
+@Component
+public class RegistrationKeyCheck {
+
+    static final Set<String> KEY_COLUMNS = Set.of("skier_num_skier", "course_num_course", "num_week");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RegistrationKeyCheck(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        Boolean present = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? "REGISTRATION" : "registration";
+            Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+            try (ResultSet rows = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, true, false)) {
+                while (rows.next()) {
+                    String index = rows.getString("INDEX_NAME");
+                    String column = rows.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        uniqueIndexes.computeIfAbsent(index, k -> new HashSet<>()).add(column.toLowerCase());
+                    }
+                }
+            }
+            return uniqueIndexes.containsValue(KEY_COLUMNS);
+        });
+        if (!Boolean.TRUE.equals(present)) {
+            throw new IllegalStateException("Unique key uk_registration_skier_course_week is missing on registration : "
+                    + "remove the duplicate registrations and add the key before starting");
+        }
+        log.info("Registration unique key present");
+    }
+}
@@ -0,0 +1,22 @@
+package tn.esprit.spring.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.services.ICatalogServices;
+
+@Tag(name = "\uD83D\uDDC2 Catalog Management")
+@RestController
+@RequestMapping("/catalog")
+@RequiredArgsConstructor
+public class CatalogRestController {
+
+    private final ICatalogServices catalogServices;
+
+    @Operation(description = "Reload the in-memory piste and course catalog on every node")
+    @PostMapping("/reload")
+    public void reloadCatalog(){
+        catalogServices.reloadCatalog();
+    }
+}
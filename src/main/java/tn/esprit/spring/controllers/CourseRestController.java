@@ -1,15 +1,18 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.services.ICourseServices;
 
-import java.util.List;
-
 @Tag(name = "\uD83D\uDCDA Course Management")
 @RestController
 @RequestMapping("/course")
@@ -17,6 +20,8 @@ import java.util.List;
 public class CourseRestController {
     
     private final ICourseServices courseServices;
+    private final ObjectMapper objectMapper;
+    private final PreEncodedJson allCoursesJson = new PreEncodedJson();
 
     @Operation(description = "Add Course")
     @PostMapping("/add")
@@ -24,10 +29,22 @@ public class CourseRestController {
         return  courseServices.addCourse(course);
     }
 
-    @Operation(description = "Retrieve all Courses")
+    @Operation(description = "Retrieve all Courses (pre-encoded JSON, gzip and ETag aware), or one keyset page of them when after/limit are given")
     @GetMapping("/all")
-    public List<Course> getAllCourses(){
-        return courseServices.retrieveAllCourses();
+    public ResponseEntity<?> getAllCourses(@RequestParam(value = "after", required = false) Long after,
+                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        if (after == null && limit == null) {
+            return allCoursesJson.respond(courseServices.retrieveAllCourses(), objectMapper, ifNoneMatch, acceptEncoding);
+        }
+        return ResponseEntity.ok(courseServices.retrieveCoursesAfter(after, limit));
+    }
+
+    @Operation(description = "Stream all Courses as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllCourses(){
+        return out -> courseServices.streamAllCourses(NdjsonWriter.to(out, objectMapper));
     }
 
     @Operation(description = "Update Course ")
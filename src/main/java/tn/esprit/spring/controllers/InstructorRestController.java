@@ -1,9 +1,13 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.InstructorDTO;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.services.IInstructorServices;
 
@@ -16,6 +20,7 @@ import java.util.List;
 public class InstructorRestController {
 
     private final IInstructorServices instructorServices;
+    private final ObjectMapper objectMapper;
 
     @Operation(description = "Add Instructor")
     @PostMapping("/add")
@@ -27,10 +32,26 @@ public class InstructorRestController {
     public Instructor addAndAssignToInstructor(@RequestBody Instructor instructor, @PathVariable("numCourse")Long numCourse){
         return  instructorServices.addInstructorAndAssignToCourse(instructor,numCourse);
     }
-    @Operation(description = "Retrieve all Instructors")
+    @Operation(description = "Retrieve all Instructors, or one keyset page of them when after/limit are given")
     @GetMapping("/all")
-    public List<Instructor> getAllInstructors(){
-        return instructorServices.retrieveAllInstructors();
+    public List<Instructor> getAllInstructors(@RequestParam(value = "after", required = false) Long after,
+                                              @RequestParam(value = "limit", required = false) Integer limit){
+        if (after == null && limit == null) {
+            return instructorServices.retrieveAllInstructors();
+        }
+        return instructorServices.retrieveInstructorsAfter(after, limit);
+    }
+
+    @Operation(description = "Retrieve all Instructors with their course ids, in one query")
+    @GetMapping("/all/summary")
+    public List<InstructorDTO> getAllInstructorSummaries(){
+        return instructorServices.retrieveInstructorSummaries();
+    }
+
+    @Operation(description = "Stream all Instructors as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllInstructors(){
+        return out -> instructorServices.streamAllInstructors(NdjsonWriter.to(out, objectMapper));
     }
 
     @Operation(description = "Update Instructor ")
@@ -0,0 +1,29 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes each element as one JSON line (application/x-ndjson) as soon as it is produced,
+ * so the streamed listings never hold the whole result on the heap.
+ */
+final class NdjsonWriter {
+
+    private NdjsonWriter() {
+    }
+
+    static <T> Consumer<T> to(OutputStream out, ObjectMapper objectMapper) {
+        return item -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -1,13 +1,29 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.PassageEvent;
+import tn.esprit.spring.dto.PassageIngestionReport;
+import tn.esprit.spring.dto.PistePopularityDTO;
+import tn.esprit.spring.dto.PisteSearchCriteria;
+import tn.esprit.spring.entities.Color;
 import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.entities.PistePassageCount;
+import tn.esprit.spring.services.IPassageIngestionServices;
 import tn.esprit.spring.services.IPisteServices;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @Tag(name = "\uD83C\uDFBF Piste Management")
 @RestController
@@ -16,16 +32,50 @@ import java.util.List;
 public class PisteRestController {
 
     private final IPisteServices pisteServices;
+    private final IPassageIngestionServices passageIngestionServices;
+    private final ObjectMapper objectMapper;
+    private final PreEncodedJson allPistesJson = new PreEncodedJson();
 
     @Operation(description = "Add Piste")
     @PostMapping("/add")
     public Piste addPiste(@RequestBody Piste piste){
         return  pisteServices.addPiste(piste);
     }
-    @Operation(description = "Retrieve all Pistes")
+    @Operation(description = "Retrieve all Pistes (pre-encoded JSON, gzip and ETag aware), or one keyset page of them when after/limit are given")
     @GetMapping("/all")
-    public List<Piste> getAllPistes(){
-        return pisteServices.retrieveAllPistes();
+    public ResponseEntity<?> getAllPistes(@RequestParam(value = "after", required = false) Long after,
+                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        if (after == null && limit == null) {
+            return allPistesJson.respond(pisteServices.retrieveAllPistes(), objectMapper, ifNoneMatch, acceptEncoding);
+        }
+        return ResponseEntity.ok(pisteServices.retrievePistesAfter(after, limit));
+    }
+
+    @Operation(description = "Stream all Pistes as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllPistes(){
+        return out -> pisteServices.streamAllPistes(NdjsonWriter.to(out, objectMapper));
+    }
+
+    @Operation(description = "Retrieve the busiest Pistes (most skiers first), optionally of one Color")
+    @GetMapping("/top")
+    public List<PistePopularityDTO> getTopPistes(@RequestParam(value = "n", defaultValue = "10") int n,
+                                                 @RequestParam(value = "color", required = false) Color color){
+        return pisteServices.retrieveTopPistes(Math.max(1, Math.min(n, 100)), color);
+    }
+
+    @Operation(description = "Search Pistes by colors, length and slope ranges ; match=ANY keeps pistes meeting one criterion")
+    @GetMapping("/search")
+    public List<Piste> searchPistes(@RequestParam(value = "color", required = false) Set<Color> colors,
+                                    @RequestParam(value = "minLength", required = false) Integer minLength,
+                                    @RequestParam(value = "maxLength", required = false) Integer maxLength,
+                                    @RequestParam(value = "minSlope", required = false) Integer minSlope,
+                                    @RequestParam(value = "maxSlope", required = false) Integer maxSlope,
+                                    @RequestParam(value = "match", defaultValue = "ALL") String match){
+        return pisteServices.searchPistes(new PisteSearchCriteria(colors, minLength, maxLength, minSlope, maxSlope,
+                "ANY".equalsIgnoreCase(match)));
     }
 
     @Operation(description = "Retrieve Piste by Id")
@@ -39,6 +89,22 @@ public class PisteRestController {
     public void deleteById(@PathVariable("id-piste") Long numPiste){
         pisteServices.removePiste(numPiste);
     }
+
+    @Operation(description = "Ingest a batch of lift reader passages (202, or 429 when part of it was refused)")
+    @PostMapping("/passages")
+    public ResponseEntity<PassageIngestionReport> ingestPassages(@RequestBody List<PassageEvent> events){
+        PassageIngestionReport report = passageIngestionServices.submit(events);
+        HttpStatus status = report.getRejected() > 0 ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(report);
+    }
+
+    @Operation(description = "Retrieve the per-minute passages of a Piste between two date-times")
+    @GetMapping("/passages/{id-piste}")
+    public List<PistePassageCount> getPassageCounts(@PathVariable("id-piste") Long numPiste,
+                                                    @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                    @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        return passageIngestionServices.retrievePassageCounts(numPiste, from, to);
+    }
     
 
 }
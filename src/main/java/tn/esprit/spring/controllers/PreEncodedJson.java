@@ -0,0 +1,135 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON body kept encoded, plain and gzipped. Each has its own strong ETag, the gzip one being
+ * the plain one with a "-gzip" suffix, since the two representations are not byte identical ;
+ * If-None-Match accepts either, both naming the same content.
+ *
+ * The encoding is keyed on the identity of the source object : the catalog services hand out
+ * the same immutable list until the catalog changes, so a repeat request only copies bytes
+ * (or answers 304) and Jackson runs once per catalog change. A source that is rebuilt on every
+ * call (catalog not loaded yet) is simply encoded every time.
+ */
+final class PreEncodedJson {
+
+    private volatile Encoded encoded;
+
+    ResponseEntity<byte[]> respond(Object source, ObjectMapper objectMapper, String ifNoneMatch, String acceptEncoding) {
+        Encoded current = encoded;
+        if (current == null || current.source != source) {
+            current = encode(source, objectMapper);
+            encoded = current;
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? current.gzipEtag : current.etag;
+        if (matches(ifNoneMatch, current.etag) || matches(ifNoneMatch, current.gzipEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(current.gzip);
+        }
+        return response.body(current.plain);
+    }
+
+    /* gzip is acceptable when named, or covered by "*", with a q-value above 0 */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String item : acceptEncoding.split(",")) {
+            String[] parts = item.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException exception) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        double q = gzip != null ? gzip : any != null ? any : 0;
+        return q > 0;
+    }
+
+    private static Encoded encode(Object source, ObjectMapper objectMapper) {
+        try {
+            byte[] plain = objectMapper.writeValueAsBytes(source);
+            String etag = etag(plain);
+            return new Encoded(source, plain, gzip(plain), etag, etag.substring(0, etag.length() - 1) + "-gzip\"");
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] plain) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(plain);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String etag(byte[] plain) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(plain);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private record Encoded(Object source, byte[] plain, byte[] gzip, String etag, String gzipEtag) {
+    }
+}
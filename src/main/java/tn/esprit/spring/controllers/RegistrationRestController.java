@@ -1,13 +1,24 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.caches.IdempotencyStore;
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
+import tn.esprit.spring.dto.GroupRegistration;
+import tn.esprit.spring.dto.GroupRegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationTicket;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.entities.WaitlistEntry;
+import tn.esprit.spring.services.IRegistrationIntakeServices;
 import tn.esprit.spring.services.IRegistrationServices;
 
 import java.util.List;
@@ -18,19 +29,25 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RegistrationRestController {
     private final IRegistrationServices registrationServices;
+    private final IRegistrationIntakeServices registrationIntakeServices;
+    private final IdempotencyStore idempotencyStore;
 
     @Operation(description = "Add Registration and Assign to Skier")
     @PutMapping("/addAndAssignToSkier/{numSkieur}")
     public Registration addAndAssignToSkier(@RequestBody Registration registration,
-                                                     @PathVariable("numSkieur") Long numSkieur)
+                                                     @PathVariable("numSkieur") Long numSkieur,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey)
     {
-        return  registrationServices.addRegistrationAndAssignToSkier(registration,numSkieur);
+        return idempotencyStore.execute(idempotencyKey, "PUT /registration/addAndAssignToSkier/" + numSkieur,
+                registration, new TypeReference<Registration>() {}, () -> registrationServices.addRegistrationAndAssignToSkier(registration,numSkieur));
     }
     @Operation(description = "Assign Registration to Course")
     @PutMapping("/assignToCourse/{numRegis}/{numSkieur}")
     public Registration assignToCourse( @PathVariable("numRegis") Long numRegistration,
-                                        @PathVariable("numSkieur") Long numCourse){
-        return registrationServices.assignRegistrationToCourse(numRegistration, numCourse);
+                                        @PathVariable("numSkieur") Long numCourse,
+                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+        return idempotencyStore.execute(idempotencyKey, "PUT /registration/assignToCourse/" + numRegistration + "/" + numCourse,
+                null, new TypeReference<Registration>() {}, () -> registrationServices.assignRegistrationToCourse(numRegistration, numCourse));
     }
 
 
@@ -38,9 +55,68 @@ public class RegistrationRestController {
     @PutMapping("/addAndAssignToSkierAndCourse/{numSkieur}/{numCourse}")
     public Registration addAndAssignToSkierAndCourse(@RequestBody Registration registration,
                                                      @PathVariable("numSkieur") Long numSkieur,
-                                                     @PathVariable("numCourse") Long numCourse)
+                                                     @PathVariable("numCourse") Long numCourse,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey)
+    {
+        return idempotencyStore.execute(idempotencyKey, "PUT /registration/addAndAssignToSkierAndCourse/" + numSkieur + "/" + numCourse,
+                registration, new TypeReference<Registration>() {}, () -> registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse));
+    }
+
+    @Operation(description = "Register a Skier to a Course, or put the skier on the waiting list of a full week")
+    @PutMapping("/register/{numSkieur}/{numCourse}")
+    public RegistrationResult registerSkierToCourse(@RequestBody Registration registration,
+                                                    @PathVariable("numSkieur") Long numSkieur,
+                                                    @PathVariable("numCourse") Long numCourse,
+                                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey)
+    {
+        return idempotencyStore.execute(idempotencyKey, "PUT /registration/register/" + numSkieur + "/" + numCourse,
+                registration, new TypeReference<RegistrationResult>() {}, () -> registrationServices.registerSkierToCourse(registration, numSkieur, numCourse));
+    }
+
+    @Operation(description = "Register a group of Skiers (a ski school class) to Courses, with one outcome per row")
+    @PutMapping("/addGroup")
+    public List<GroupRegistrationOutcome> addGroup(@RequestBody List<GroupRegistration> rows,
+                                                   @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "PUT /registration/addGroup",
+                rows, new TypeReference<List<GroupRegistrationOutcome>>() {}, () -> registrationServices.registerGroup(rows));
+    }
+
+    @Operation(description = "Queue a registration of a Skier to a Course (202 with a ticket, 429 when the queue is full). "
+            + "Queued requests are kept in memory only : after a crash their tickets are unknown (404) and must be submitted again")
+    @PutMapping("/intake/{numSkieur}/{numCourse}")
+    public ResponseEntity<RegistrationTicket> submitRegistration(@RequestBody Registration registration,
+                                                                 @PathVariable("numSkieur") Long numSkieur,
+                                                                 @PathVariable("numCourse") Long numCourse,
+                                                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey)
     {
-        return  registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse);
+        RegistrationTicket ticket = idempotencyStore.execute(idempotencyKey, "PUT /registration/intake/" + numSkieur + "/" + numCourse,
+                registration, new TypeReference<RegistrationTicket>() {},
+                () -> registrationIntakeServices.submit(registration, numSkieur, numCourse));
+        HttpStatus status = switch (ticket.getStatus()) {
+            case REJECTED -> HttpStatus.TOO_MANY_REQUESTS;
+            case INVALID -> HttpStatus.BAD_REQUEST;
+            default -> HttpStatus.ACCEPTED;
+        };
+        return ResponseEntity.status(status).body(ticket);
+    }
+
+    @Operation(description = "Retrieve a queued registration ticket, to follow its outcome")
+    @GetMapping("/intake/{ticketId}")
+    public ResponseEntity<RegistrationTicket> getTicket(@PathVariable("ticketId") String ticketId) {
+        RegistrationTicket ticket = registrationIntakeServices.retrieveTicket(ticketId);
+        return ticket == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(ticket);
+    }
+
+    @Operation(description = "Retrieve a waiting list entry, to follow its promotion")
+    @GetMapping("/waitlist/{numEntry}")
+    public WaitlistEntry getWaitlistEntry(@PathVariable("numEntry") Long numEntry) {
+        return registrationServices.retrieveWaitlistEntry(numEntry);
+    }
+
+    @Operation(description = "Delete Registration, giving its seat to the waiting list")
+    @DeleteMapping("/delete/{numRegistration}")
+    public void deleteRegistration(@PathVariable("numRegistration") Long numRegistration) {
+        registrationServices.removeRegistration(numRegistration);
     }
 
     @Operation(description = "Numbers of the weeks when an instructor has given lessons in a given support")
@@ -49,4 +125,10 @@ public class RegistrationRestController {
                                                                   @PathVariable("support") Support support) {
         return registrationServices.numWeeksCourseOfInstructorBySupport(numInstructor,support);
     }
+
+    @Operation(description = "Seats taken and remaining for every course and every week, in one matrix")
+    @GetMapping("/availability")
+    public CourseAvailabilityDTO getAvailabilityMatrix() {
+        return registrationServices.retrieveAvailabilityMatrix();
+    }
 }
@@ -1,13 +1,25 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.caches.IdempotencyStore;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.dto.SkierPisteAssignment;
+import tn.esprit.spring.dto.SkierPisteAssignmentReport;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierImportServices;
 import tn.esprit.spring.services.ISkierServices;
 
+import java.io.IOException;
 import java.util.List;
 
 @Tag(name = "\uD83C\uDFC2 Skier Management")
@@ -17,6 +29,9 @@ import java.util.List;
 public class SkierRestController {
 
     private final ISkierServices skierServices;
+    private final ISkierImportServices skierImportServices;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
     @Operation(description = "Add Skier")
     @PostMapping("/add")
@@ -24,6 +39,18 @@ public class SkierRestController {
         return  skierServices.addSkier(skier);
     }
 
+    @Operation(description = "Import Skiers in bulk from a JSON array")
+    @PostMapping("/import")
+    public SkierImportReport importSkiers(@RequestBody List<Skier> skiers){
+        return skierImportServices.importSkiers(skiers);
+    }
+
+    @Operation(description = "Import Skiers in bulk from a CSV file (firstName,lastName,dateOfBirth,city,typeSub,startDate,price)")
+    @PostMapping(value = "/import/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public SkierImportReport importSkiersFromCsv(@RequestParam("file") MultipartFile file) throws IOException {
+        return skierImportServices.importSkiersFromCsv(file.getInputStream());
+    }
+
     @Operation(description = "Add Skier And Assign To Course")
     @PostMapping("/addAndAssign/{numCourse}")
     public Skier addSkierAndAssignToCourse(@RequestBody Skier skier,
@@ -33,37 +60,76 @@ public class SkierRestController {
     @Operation(description = "Assign Skier To Subscription")
     @PutMapping("/assignToSub/{numSkier}/{numSub}")
     public Skier assignToSubscription(@PathVariable("numSkier")Long numSkier,
-                               @PathVariable("numSub") Long numSub){
-        return skierServices.assignSkierToSubscription(numSkier, numSub);
+                               @PathVariable("numSub") Long numSub,
+                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+        return idempotencyStore.execute(idempotencyKey, "PUT /skier/assignToSub/" + numSkier + "/" + numSub,
+                null, new TypeReference<Skier>() {}, () -> skierServices.assignSkierToSubscription(numSkier, numSub));
     }
 
     @Operation(description = "Assign Skier To Piste")
     @PutMapping("/assignToPiste/{numSkier}/{numPiste}")
     public Skier assignToPiste(@PathVariable("numSkier")Long numSkier,
-                               @PathVariable("numPiste") Long numPiste){
-        return skierServices.assignSkierToPiste(numSkier,numPiste);
+                               @PathVariable("numPiste") Long numPiste,
+                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+        return idempotencyStore.execute(idempotencyKey, "PUT /skier/assignToPiste/" + numSkier + "/" + numPiste,
+                null, new TypeReference<Skier>() {}, () -> skierServices.assignSkierToPiste(numSkier,numPiste));
+    }
+
+    @Operation(description = "Assign many Skiers to Pistes at once, pairs already assigned are ignored")
+    @PutMapping("/assignToPistes")
+    public SkierPisteAssignmentReport assignToPistes(@RequestBody List<SkierPisteAssignment> assignments,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+        return idempotencyStore.execute(idempotencyKey, "PUT /skier/assignToPistes",
+                assignments, new TypeReference<SkierPisteAssignmentReport>() {}, () -> skierServices.assignSkiersToPistes(assignments));
     }
     @Operation(description = "retrieve Skiers By Subscription Type")
     @GetMapping("/getSkiersBySubscription")
     public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
         return skierServices.retrieveSkiersBySubscriptionType(typeSubscription);
     }
+    @Operation(description = "retrieve Skier summaries By Subscription Type")
+    @GetMapping("/getSkiersBySubscription/summary")
+    public List<SkierDTO> retrieveSkierSummariesBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierServices.retrieveSkierSummariesBySubscriptionType(typeSubscription);
+    }
     @Operation(description = "Retrieve Skier by Id")
     @GetMapping("/get/{id-skier}")
     public Skier getById(@PathVariable("id-skier") Long numSkier){
         return skierServices.retrieveSkier(numSkier);
     }
 
+    @Operation(description = "Check that a Skier holds a subscription valid today (lift gates)")
+    @GetMapping("/pass/{id-skier}")
+    public boolean hasValidPass(@PathVariable("id-skier") Long numSkier){
+        return skierServices.hasValidPass(numSkier);
+    }
+
     @Operation(description = "Delete Skier by Id")
     @DeleteMapping("/delete/{id-skier}")
     public void deleteById(@PathVariable("id-skier") Long numSkier){
         skierServices.removeSkier(numSkier);
     }
 
-    @Operation(description = "Retrieve all Skiers")
+    @Operation(description = "Retrieve all Skiers, or one keyset page of them when after/limit are given")
     @GetMapping("/all")
-    public List<Skier> getAllSkiers(){
-        return skierServices.retrieveAllSkiers();
+    public List<Skier> getAllSkiers(@RequestParam(value = "after", required = false) Long after,
+                                    @RequestParam(value = "limit", required = false) Integer limit){
+        if (after == null && limit == null) {
+            return skierServices.retrieveAllSkiers();
+        }
+        return skierServices.retrieveSkiersAfter(after, limit);
+    }
+
+    @Operation(description = "Retrieve all Skiers with their subscription, in one query")
+    @GetMapping("/all/summary")
+    public List<SkierDTO> getAllSkierSummaries(){
+        return skierServices.retrieveSkierSummaries();
+    }
+
+    @Operation(description = "Stream all Skiers as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllSkiers(){
+        return out -> skierServices.streamAllSkiers(NdjsonWriter.to(out, objectMapper));
     }
 
 }
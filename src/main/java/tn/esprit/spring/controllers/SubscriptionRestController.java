@@ -1,16 +1,19 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.services.ISubscriptionServices;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
 
 @Tag(name = "\uD83D\uDC65 Subscription Management")
 @RestController
@@ -19,6 +22,7 @@ import java.util.Set;
 public class SubscriptionRestController {
 
     private final ISubscriptionServices subscriptionServices;
+    private final ObjectMapper objectMapper;
 
     @Operation(description = "Add Subscription ")
     @PostMapping("/add")
@@ -31,21 +35,45 @@ public class SubscriptionRestController {
         return subscriptionServices.retrieveSubscriptionById(numSubscription);
     }
     
-    @Operation(description = "Retrieve Subscriptions by Type")
+    @Operation(description = "Retrieve Subscriptions by Type ordered by start date, "
+            + "or one keyset page of them when afterDate/afterId/limit are given")
     @GetMapping("/all/{typeSub}")
-    public Set<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
-        return subscriptionServices.getSubscriptionByType(typeSubscription);
+    public List<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription,
+                                                     @RequestParam(value = "afterDate", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+                                                     @RequestParam(value = "afterId", required = false) Long afterId,
+                                                     @RequestParam(value = "limit", required = false) Integer limit){
+        if (afterDate == null && afterId == null && limit == null) {
+            return subscriptionServices.getSubscriptionByType(typeSubscription);
+        }
+        return subscriptionServices.getSubscriptionByTypeAfter(typeSubscription, afterDate, afterId, limit);
+    }
+    @Operation(description = "Stream Subscriptions by Type ordered by start date as NDJSON")
+    @GetMapping(value = "/all/{typeSub}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
+        return out -> subscriptionServices.streamSubscriptionsByType(typeSubscription, NdjsonWriter.to(out, objectMapper));
     }
     @Operation(description = "Update Subscription ")
     @PutMapping("/update")
     public Subscription updateSubscription(@RequestBody Subscription subscription){
         return  subscriptionServices.updateSubscription(subscription);
     }
+    @Operation(description = "Monthly recurring revenue")
+    @GetMapping("/mrr")
+    public double getMonthlyRecurringRevenue(){
+        return subscriptionServices.retrieveMonthlyRecurringRevenue();
+    }
     @Operation(description = "Retrieve Subscriptions created between two dates")
     @GetMapping("/all/{date1}/{date2}")
     public List<Subscription> getSubscriptionsByDates(@PathVariable("date1") LocalDate startDate,
                                                       @PathVariable("date2") LocalDate endDate){
         return subscriptionServices.retrieveSubscriptionsByDates(startDate, endDate);
     }
+    @Operation(description = "Retrieve Subscriptions active at some point between two dates")
+    @GetMapping("/active/{date1}/{date2}")
+    public List<Subscription> getSubscriptionsActiveBetween(@PathVariable("date1") LocalDate startDate,
+                                                            @PathVariable("date2") LocalDate endDate){
+        return subscriptionServices.retrieveSubscriptionsActiveBetween(startDate, endDate);
+    }
 
 }
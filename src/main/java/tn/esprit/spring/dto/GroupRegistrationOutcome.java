@@ -0,0 +1,24 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Outcome of one group registration row, in the order of the request. FULL rows did not get
+ * one of the remaining seats of their course week and are not waitlisted.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class GroupRegistrationOutcome {
+	Long numSkier;
+	Long numCourse;
+	int numWeek;
+	RegistrationStatus status;
+}
@@ -0,0 +1,43 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Instructor;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Instructor listing row : the courses are reduced to their ids.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class InstructorDTO {
+	Long numInstructor;
+	String firstName;
+	String lastName;
+	LocalDate dateOfHire;
+	Set<Long> numCourses;
+
+	public static InstructorDTO from(Instructor instructor) {
+		Set<Long> numCourses = new TreeSet<>();
+		if (instructor.getCourses() != null) {
+			for (Course course : instructor.getCourses()) {
+				if (course != null) {
+					numCourses.add(course.getNumCourse());
+				}
+			}
+		}
+		return new InstructorDTO(instructor.getNumInstructor(), instructor.getFirstName(),
+				instructor.getLastName(), instructor.getDateOfHire(), numCourses);
+	}
+}
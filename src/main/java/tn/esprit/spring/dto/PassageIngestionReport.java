@@ -0,0 +1,24 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Outcome of a passage batch : invalid events are dropped, rejected ones were refused because
+ * the ingestion queue was full and should be sent again later.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class PassageIngestionReport {
+	int received;
+	int accepted;
+	int invalid;
+	int rejected;
+}
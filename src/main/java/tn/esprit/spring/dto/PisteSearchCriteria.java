@@ -0,0 +1,59 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+
+import java.util.Set;
+
+/**
+ * Piste search : any of the colors, and/or a length range, and/or a slope range. Missing
+ * criteria are left out ; "any" matches pistes meeting one criterion instead of all of them.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class PisteSearchCriteria {
+	Set<Color> colors;
+	Integer minLength;
+	Integer maxLength;
+	Integer minSlope;
+	Integer maxSlope;
+	boolean any;
+
+	public boolean hasColors() {
+		return colors != null && !colors.isEmpty();
+	}
+
+	public boolean hasLength() {
+		return minLength != null || maxLength != null;
+	}
+
+	public boolean hasSlope() {
+		return minSlope != null || maxSlope != null;
+	}
+
+	public boolean matches(Piste piste) {
+		if (!hasColors() && !hasLength() && !hasSlope()) {
+			return true;
+		}
+		boolean color = hasColors() && colors.contains(piste.getColor());
+		boolean length = hasLength() && within(piste.getLength(), minLength, maxLength);
+		boolean slope = hasSlope() && within(piste.getSlope(), minSlope, maxSlope);
+		if (any) {
+			return color || length || slope;
+		}
+		return (color || !hasColors()) && (length || !hasLength()) && (slope || !hasSlope());
+	}
+
+	private static boolean within(int value, Integer min, Integer max) {
+		return (min == null || value >= min) && (max == null || value <= max);
+	}
+}
@@ -0,0 +1,29 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.WaitlistEntry;
+
+/**
+ * Outcome of one registration request : the saved registration when REGISTERED, the waitlist
+ * entry to poll when WAITLISTED, neither otherwise.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class RegistrationResult {
+	RegistrationStatus status;
+	Registration registration;
+	WaitlistEntry waitlistEntry;
+
+	public static RegistrationResult of(RegistrationStatus status) {
+		return new RegistrationResult(status, null, null);
+	}
+}
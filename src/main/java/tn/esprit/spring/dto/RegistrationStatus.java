@@ -0,0 +1,5 @@
+package tn.esprit.spring.dto;
+
+public enum RegistrationStatus {
+	REGISTERED, WAITLISTED, FULL, DUPLICATE, AGE_NOT_ALLOWED, NOT_FOUND
+}
@@ -0,0 +1,31 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Receipt of a queued registration request. Poll it by ticketId until it is DONE (the result
+ * then holds the registration outcome) or FAILED. REJECTED means the intake queue was full and
+ * the request should be sent again later, INVALID that it was malformed.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class RegistrationTicket {
+	String ticketId;
+	TicketStatus status;
+	Long numSkier;
+	Long numCourse;
+	int numWeek;
+	LocalDateTime acceptedAt;
+	LocalDateTime completedAt;
+	RegistrationResult result;
+}
@@ -0,0 +1,32 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+/**
+ * Flat skier listing row : the skier columns plus its subscription, read with one
+ * JPQL constructor expression so a listing never triggers per-row selects.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class SkierDTO {
+	Long numSkier;
+	String firstName;
+	String lastName;
+	LocalDate dateOfBirth;
+	String city;
+	Long numSub;
+	TypeSubscription typeSub;
+	LocalDate startDate;
+	LocalDate endDate;
+}
@@ -0,0 +1,23 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Outcome of a bulk excursion assignment. Pairs already recorded, or naming an unknown skier
+ * or piste, are ignored ; "inserted" is null when the driver does not report per-row counts.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class SkierPisteAssignmentReport {
+	int received;
+	int distinct;
+	Integer inserted;
+}
@@ -0,0 +1,32 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Change counter of a reference catalog, bumped on every write so that each node notices it
+ * has to reload its in-memory copy.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+public class CatalogVersion implements Serializable {
+
+	@Id
+	String catalog;
+	long version;
+}
@@ -30,6 +30,8 @@ public class Course implements Serializable {
 	Support support;
 	Float price;
 	int timeSlot;
+	/* Seats per week for collective courses, 6 when not set */
+	Integer capacity;
 
 	@JsonIgnore
 	@OneToMany(mappedBy= "course")
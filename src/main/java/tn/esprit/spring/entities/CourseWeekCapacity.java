@@ -0,0 +1,42 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Seats of one course for one week. Admission increments "taken" with a single
+ * conditional update, so no registration has to be counted to decide it.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"num_course", "num_week"}))
+public class CourseWeekCapacity implements Serializable {
+
+	@Id
+	@GeneratedValue(strategy= GenerationType.IDENTITY)
+	Long numCapacity;
+
+	@ToString.Exclude
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "num_course")
+	Course course;
+
+	@Column(name = "num_week")
+	int numWeek;
+	int taken;
+	int capacity;
+}
@@ -0,0 +1,40 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Lift reader passages of one piste during one minute. Rows are upserted in bulk by the
+ * passage ingestion, which adds to "passages" instead of inserting one row per event. The
+ * piste is kept as a plain id so a reader reporting an unknown piste cannot fail a batch.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"num_piste", "minute_start"}))
+public class PistePassageCount implements Serializable {
+
+	@Id
+	@GeneratedValue(strategy= GenerationType.IDENTITY)
+	Long numCount;
+
+	@Column(name = "num_piste", nullable = false)
+	Long numPiste;
+
+	@Column(name = "minute_start", nullable = false)
+	LocalDateTime minuteStart;
+
+	long passages;
+}
@@ -25,17 +25,23 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @jakarta.persistence.Entity
+/* A skier holds a course week once : duplicates are refused by the database, not counted first */
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_registration_skier_course_week",
+		columnNames = {"skier_num_skier", "course_num_course", "num_week"}))
 public class Registration implements Serializable {
 
 	@jakarta.persistence.Id
 	@jakarta.persistence.GeneratedValue(strategy= jakarta.persistence.GenerationType.IDENTITY)
 	Long numRegistration;
+	@Column(name = "num_week")
 	int numWeek;
 
 	@JsonIgnore
 	@jakarta.persistence.ManyToOne
+	@JoinColumn(name = "skier_num_skier")
     Skier skier;
 	@JsonIgnore
 	@jakarta.persistence.ManyToOne
+	@JoinColumn(name = "course_num_course")
 	Course course;
 }
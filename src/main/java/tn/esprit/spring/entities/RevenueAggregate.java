@@ -0,0 +1,35 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Last persisted running sum and count of subscription prices for one subscription type.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+public class RevenueAggregate implements Serializable {
+
+	@Id
+	@Enumerated(EnumType.STRING)
+	TypeSubscription typeSub;
+	double total;
+	long count;
+}
@@ -9,6 +9,7 @@ import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
+import org.hibernate.annotations.BatchSize;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,7 +25,9 @@ import lombok.experimental.FieldDefaults;
 public class Skier implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy= GenerationType.IDENTITY)
+	@GeneratedValue(strategy= GenerationType.TABLE, generator = "skier_gen")
+	@TableGenerator(name = "skier_gen", table = "id_generator", pkColumnName = "gen_name",
+			valueColumnName = "gen_value", pkColumnValue = "skier", allocationSize = 50)
 	Long numSkier;
 	String firstName;
 	String lastName;
@@ -43,6 +46,7 @@ public class Skier implements Serializable {
 	private Set<Piste> pistes;
 
 
+	@BatchSize(size = 100)
 	@OneToMany(mappedBy = "skier")
 	Set<Registration> registrations;
 
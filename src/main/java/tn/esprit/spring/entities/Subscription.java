@@ -4,10 +4,14 @@ import java.io.Serializable;
 import java.time.LocalDate;
 
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -22,15 +26,23 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_subscription_end_date", columnList = "end_date"),
+		@Index(name = "idx_subscription_type_start", columnList = "type_sub, start_date")})
 public class Subscription implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy= GenerationType.IDENTITY)
+	@GeneratedValue(strategy= GenerationType.TABLE, generator = "subscription_gen")
+	@TableGenerator(name = "subscription_gen", table = "id_generator", pkColumnName = "gen_name",
+			valueColumnName = "gen_value", pkColumnValue = "subscription", allocationSize = 50)
 	Long numSub;
+	@Column(name = "start_date")
 	LocalDate startDate;
+	@Column(name = "end_date")
 	LocalDate endDate;
 	Float price;
 //	@Enumerated(EnumType.STRING)
+	@Column(name = "type_sub")
 	TypeSubscription typeSub;
 
 }
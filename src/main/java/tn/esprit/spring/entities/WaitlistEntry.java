@@ -0,0 +1,52 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A skier waiting for a seat in a full course week. Entries of one course week are served in
+ * numEntry order as seats are released ; the client polls the entry for its outcome, and
+ * numRegistration is set once it is REGISTERED.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+@Table(indexes = @Index(name = "idx_waitlist_course_week", columnList = "num_course, num_week, status, num_entry"))
+public class WaitlistEntry implements Serializable {
+
+	@Id
+	@GeneratedValue(strategy= GenerationType.IDENTITY)
+	@Column(name = "num_entry")
+	Long numEntry;
+
+	@Column(name = "num_skier", nullable = false)
+	Long numSkier;
+
+	@Column(name = "num_course", nullable = false)
+	Long numCourse;
+
+	@Column(name = "num_week")
+	int numWeek;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false)
+	WaitlistStatus status;
+
+	LocalDateTime requestedAt;
+	LocalDateTime resolvedAt;
+	Long numRegistration;
+}
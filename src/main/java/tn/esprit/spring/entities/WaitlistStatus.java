@@ -0,0 +1,5 @@
+package tn.esprit.spring.entities;
+
+public enum WaitlistStatus {
+	WAITING, REGISTERED, REJECTED
+}
@@ -0,0 +1,17 @@
+package tn.esprit.spring.events;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Published when a seat of a course week is given back, so the waitlist of that week can move.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE, makeFinal=true)
+public class SeatReleasedEvent {
+	Long numCourse;
+	int numWeek;
+}
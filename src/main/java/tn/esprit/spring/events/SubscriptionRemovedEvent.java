@@ -0,0 +1,17 @@
+package tn.esprit.spring.events;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Subscription;
+
+/**
+ * Published when a subscription is deleted (with its skier), carrying its last state.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE, makeFinal=true)
+public class SubscriptionRemovedEvent {
+	Subscription subscription;
+}
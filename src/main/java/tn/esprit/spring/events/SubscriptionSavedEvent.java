@@ -0,0 +1,19 @@
+package tn.esprit.spring.events;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Subscription;
+
+/**
+ * Published by the services whenever a subscription is created or updated, so in-memory
+ * read models can follow. "previous" is a detached copy of the former state, null on creation.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE, makeFinal=true)
+public class SubscriptionSavedEvent {
+	Subscription subscription;
+	Subscription previous;
+}
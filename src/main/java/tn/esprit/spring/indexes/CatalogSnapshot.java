@@ -0,0 +1,61 @@
+package tn.esprit.spring.indexes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable id-ordered copy of a small reference table. Writes build a new snapshot, which
+ * readers pick up through a volatile reference without any lock.
+ */
+public final class CatalogSnapshot<T> {
+
+    private final Function<T, Long> idOf;
+    private final Map<Long, T> byId;
+    private final List<T> all;
+
+    private CatalogSnapshot(Function<T, Long> idOf, TreeMap<Long, T> byId) {
+        this.idOf = idOf;
+        this.byId = Collections.unmodifiableMap(byId);
+        this.all = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+    }
+
+    public static <T> CatalogSnapshot<T> of(Collection<T> items, Function<T, Long> idOf) {
+        TreeMap<Long, T> byId = new TreeMap<>();
+        for (T item : items) {
+            byId.put(idOf.apply(item), item);
+        }
+        return new CatalogSnapshot<>(idOf, byId);
+    }
+
+    public List<T> all() {
+        return all;
+    }
+
+    public T get(Long id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    public CatalogSnapshot<T> with(T item) {
+        TreeMap<Long, T> copy = new TreeMap<>(byId);
+        copy.put(idOf.apply(item), item);
+        return new CatalogSnapshot<>(idOf, copy);
+    }
+
+    public CatalogSnapshot<T> without(Long id) {
+        if (!byId.containsKey(id)) {
+            return this;
+        }
+        TreeMap<Long, T> copy = new TreeMap<>(byId);
+        copy.remove(id);
+        return new CatalogSnapshot<>(idOf, copy);
+    }
+}
@@ -0,0 +1,193 @@
+package tn.esprit.spring.indexes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registrations per (course, week) as one dense int matrix : a row per course, a column per
+ * week number. Loaded with a single grouped count when the application is ready, incremented
+ * by the registration service after each commit, and rebuilt periodically to pick up writes
+ * made by other nodes. Registrations changed while a rebuild counts are settled against the
+ * snapshot of that count (see TouchedRows).
+ *
+ * Rows and columns grow on demand; weeks below 0 are not counted.
+ */
+@Slf4j
+@Component
+public class CourseWeekOccupancy {
+
+    private static final int INITIAL_WEEKS = 53;
+
+    private final IRegistrationRepository registrationRepository;
+    private final TransactionTemplate repeatableRead;
+
+    /* Guarded by "this", null until built */
+    private Counts counts;
+    /* Registrations changed while a rebuild counts, null otherwise */
+    private TouchedRows<Long, CourseWeek> touched;
+    private final Object rebuilding = new Object();
+
+    public CourseWeekOccupancy(IRegistrationRepository registrationRepository, PlatformTransactionManager transactionManager) {
+        this.registrationRepository = registrationRepository;
+        this.repeatableRead = new TransactionTemplate(transactionManager);
+        this.repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.repeatableRead.setReadOnly(true);
+    }
+
+    /**
+     * Copy of the matrix, or null when not built yet.
+     */
+    public synchronized Matrix matrix() {
+        return counts == null ? null : counts.matrix();
+    }
+
+    public synchronized void registrationAdded(Long numRegistration, Long numCourse, int numWeek) {
+        if (counts != null) {
+            counts.add(numCourse, numWeek, 1);
+        }
+        touched(numRegistration, numCourse, numWeek);
+    }
+
+    /* A null target course is a registration removed */
+    public synchronized void registrationMoved(Long numRegistration, Long fromNumCourse, Long toNumCourse, int numWeek) {
+        if (counts != null) {
+            counts.add(fromNumCourse, numWeek, -1);
+            counts.add(toNumCourse, numWeek, 1);
+        }
+        touched(numRegistration, toNumCourse, numWeek);
+    }
+
+    /* Caller holds "this" */
+    private void touched(Long numRegistration, Long numCourse, int numWeek) {
+        if (touched != null && numRegistration != null) {
+            touched.touched(numRegistration, numCourse == null ? null : new CourseWeek(numCourse, numWeek));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${indexes.course-weeks.rebuild-ms:600000}",
+            initialDelayString = "${indexes.course-weeks.rebuild-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuilding) {
+            long start = System.nanoTime();
+            TouchedRows<Long, CourseWeek> changed = new TouchedRows<>();
+            synchronized (this) {
+                touched = changed;
+            }
+            try {
+                repeatableRead.executeWithoutResult(status -> {
+                    Counts rebuilt = Counts.of(registrationRepository.countByCourseAndWeek());
+                    changed.settle(this, this::readCourseWeeks, () -> {
+                        changed.forEach((seen, latest) -> {
+                            if (seen != null) {
+                                rebuilt.add(seen.numCourse(), seen.numWeek(), -1);
+                            }
+                            if (latest != null) {
+                                rebuilt.add(latest.numCourse(), latest.numWeek(), 1);
+                            }
+                        });
+                        counts = rebuilt;
+                        touched = null;
+                    });
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    touched = null;
+                }
+                throw e;
+            }
+            int rows;
+            synchronized (this) {
+                rows = counts.rowByCourse.size();
+            }
+            log.info("Course week occupancy built for " + rows + " courses in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    private Map<Long, CourseWeek> readCourseWeeks(Collection<Long> numRegistrations) {
+        Map<Long, CourseWeek> courseWeeks = new HashMap<>();
+        for (Object[] row : registrationRepository.findCourseWeeksByIds(numRegistrations)) {
+            courseWeeks.put((Long) row[0], new CourseWeek((Long) row[1], (Integer) row[2]));
+        }
+        return courseWeeks;
+    }
+
+    /**
+     * taken[i][w] registrations of course courses[i] in week w, for weeks 0 .. weeks - 1.
+     */
+    public record Matrix(long[] courses, int weeks, int[][] taken) {
+
+        public static Matrix of(List<Object[]> counts) {
+            return Counts.of(counts).matrix();
+        }
+    }
+
+    private record CourseWeek(Long numCourse, int numWeek) {
+    }
+
+    /* The matrix being counted, not thread safe */
+    private static final class Counts {
+
+        private final Map<Long, Integer> rowByCourse = new HashMap<>();
+        private long[] courses = new long[0];
+        private int[][] taken = new int[0][];
+        private int weeks = INITIAL_WEEKS;
+
+        /* numCourse, numWeek, count rows of a grouped count */
+        static Counts of(List<Object[]> grouped) {
+            Counts counts = new Counts();
+            for (Object[] row : grouped) {
+                counts.add((Long) row[0], (Integer) row[1], ((Long) row[2]).intValue());
+            }
+            return counts;
+        }
+
+        void add(Long numCourse, int numWeek, int delta) {
+            if (numCourse == null || numWeek < 0) {
+                return;
+            }
+            if (numWeek >= weeks) {
+                weeks = Math.max(numWeek + 1, weeks * 2);
+                for (int row = 0; row < rowByCourse.size(); row++) {
+                    taken[row] = Arrays.copyOf(taken[row], weeks);
+                }
+            }
+            Integer row = rowByCourse.get(numCourse);
+            if (row == null) {
+                row = rowByCourse.size();
+                if (row == courses.length) {
+                    int capacity = Math.max(16, row * 2);
+                    courses = Arrays.copyOf(courses, capacity);
+                    taken = Arrays.copyOf(taken, capacity);
+                }
+                courses[row] = numCourse;
+                taken[row] = new int[weeks];
+                rowByCourse.put(numCourse, row);
+            }
+            taken[row][numWeek] = Math.max(0, taken[row][numWeek] + delta);
+        }
+
+        Matrix matrix() {
+            int rows = rowByCourse.size();
+            int[][] copy = new int[rows][];
+            for (int row = 0; row < rows; row++) {
+                copy[row] = Arrays.copyOf(taken[row], weeks);
+            }
+            return new Matrix(Arrays.copyOf(courses, rows), weeks, copy);
+        }
+    }
+}
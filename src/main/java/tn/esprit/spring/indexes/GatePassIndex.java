@@ -0,0 +1,347 @@
+package tn.esprit.spring.indexes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.events.SubscriptionRemovedEvent;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Validity window of every skier's subscription, answering the lift gates without a database
+ * round trip.
+ *
+ * An open-addressing table (linear probing, backward-shift deletion) keyed by numSkier, laid out
+ * as parallel primitive arrays : a lookup is a few array reads and allocates nothing. Dates are
+ * stored as epoch days, a missing end date as "forever".
+ *
+ * Kept up to date by SkierServicesImpl on skier writes and by the subscription events, built
+ * when the application is ready and rebuilt periodically to pick up writes made by other nodes.
+ * Changes arriving while a rebuild reads the database are replayed on the rebuilt table before
+ * it is swapped in. GatePassSnapshot restores it from disk at start-up, so the gates are served while the first
+ * rebuild runs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GatePassIndex {
+
+    private static final long EMPTY = 0L;
+    private static final int NO_END = Integer.MAX_VALUE;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final ISkierRepository skierRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /* Guarded by lock */
+    private Table table = new Table(MIN_CAPACITY);
+    /* Changes applied while a rebuild reads the database, null otherwise ; guarded by lock */
+    private List<Runnable> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether the skier holds a subscription covering the given day, or null when the index
+     * cannot answer (not built yet).
+     */
+    public Boolean isValid(long numSkier, LocalDate day) {
+        if (!ready) {
+            return null;
+        }
+        int epochDay = (int) day.toEpochDay();
+        lock.readLock().lock();
+        try {
+            Table current = table;
+            int slot = current.find(numSkier);
+            return slot >= 0 && current.starts[slot] <= epochDay && epochDay <= current.ends[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void skierSaved(Skier skier) {
+        if (skier.getNumSkier() == null) {
+            return;
+        }
+        Long numSkier = skier.getNumSkier();
+        Subscription subscription = skier.getSubscription();
+        if (subscription == null || subscription.getStartDate() == null) {
+            apply(() -> table.remove(numSkier));
+        } else {
+            Long numSub = subscription.getNumSub();
+            LocalDate startDate = subscription.getStartDate();
+            LocalDate endDate = subscription.getEndDate();
+            apply(() -> table = table.put(numSkier, numSub, startDate, endDate));
+        }
+    }
+
+    public void skierRemoved(Long numSkier) {
+        if (numSkier == null) {
+            return;
+        }
+        apply(() -> table.remove(numSkier));
+    }
+
+    /* New subscriptions reach the index with their skier, only date changes are applied here */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionSaved(SubscriptionSavedEvent event) {
+        Subscription subscription = event.getSubscription();
+        if (event.getPrevious() == null || subscription.getNumSub() == null || subscription.getStartDate() == null) {
+            return;
+        }
+        long numSub = subscription.getNumSub();
+        LocalDate startDate = subscription.getStartDate();
+        LocalDate endDate = subscription.getEndDate();
+        apply(() -> table.updateWindow(numSub, startDate, endDate));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionRemoved(SubscriptionRemovedEvent event) {
+        Long numSub = event.getSubscription().getNumSub();
+        if (numSub == null) {
+            return;
+        }
+        apply(() -> table.removeSubscription(numSub));
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void logChanges(boolean logging) {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = logging ? new ArrayList<>() : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* A detached copy, for the snapshot writer */
+    Table copyTable() {
+        lock.readLock().lock();
+        try {
+            return table.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Serves a restored snapshot until the first rebuild replaces it */
+    void restore(Table restored) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                return;
+            }
+            table = restored;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${indexes.gate-passes.rebuild-ms:3600000}",
+            initialDelayString = "${indexes.gate-passes.rebuild-ms:3600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        logChanges(true);
+        List<Object[]> windows;
+        try {
+            windows = skierRepository.findPassWindows();
+        } catch (RuntimeException e) {
+            logChanges(false);
+            throw e;
+        }
+        Table rebuilt = new Table(Table.capacityFor(windows.size()));
+        for (Object[] window : windows) {
+            rebuilt = rebuilt.put((Long) window[0], (Long) window[1], (LocalDate) window[2], (LocalDate) window[3]);
+        }
+        lock.writeLock().lock();
+        int size;
+        try {
+            table = rebuilt;
+            pendingDuringRebuild.forEach(Runnable::run);
+            pendingDuringRebuild = null;
+            size = table.size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Gate pass index built with " + size + " skiers in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * The table itself, half full at most. Not thread safe : reads and writes go through the
+     * index lock.
+     */
+    static final class Table {
+
+        final long[] skiers;
+        final long[] subscriptions;
+        final int[] starts;
+        final int[] ends;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            skiers = new long[capacity];
+            subscriptions = new long[capacity];
+            starts = new int[capacity];
+            ends = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        /* Smallest power of two keeping the load factor under 1/2 */
+        static int capacityFor(int entries) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < entries * 2L) {
+                capacity <<= 1;
+            }
+            return capacity;
+        }
+
+        Table copy() {
+            Table copy = new Table(skiers.length);
+            System.arraycopy(skiers, 0, copy.skiers, 0, skiers.length);
+            System.arraycopy(subscriptions, 0, copy.subscriptions, 0, skiers.length);
+            System.arraycopy(starts, 0, copy.starts, 0, skiers.length);
+            System.arraycopy(ends, 0, copy.ends, 0, skiers.length);
+            copy.size = size;
+            return copy;
+        }
+
+        int find(long numSkier) {
+            if (numSkier == EMPTY) {
+                return -1;
+            }
+            for (int slot = home(numSkier); ; slot = (slot + 1) & mask) {
+                long key = skiers[slot];
+                if (key == numSkier) {
+                    return slot;
+                }
+                if (key == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        /* Returns the table holding the entry, a bigger copy when this one is full */
+        Table put(Long numSkier, Long numSub, LocalDate startDate, LocalDate endDate) {
+            if (numSkier == null || numSkier == EMPTY || startDate == null) {
+                return this;
+            }
+            if ((size + 1) * 2 > skiers.length) {
+                Table grown = new Table(skiers.length << 1);
+                for (int slot = 0; slot < skiers.length; slot++) {
+                    if (skiers[slot] != EMPTY) {
+                        grown.insert(skiers[slot], subscriptions[slot], starts[slot], ends[slot]);
+                    }
+                }
+                return grown.put(numSkier, numSub, startDate, endDate);
+            }
+            insert(numSkier, numSub == null ? EMPTY : numSub, (int) startDate.toEpochDay(),
+                    endDate == null ? NO_END : (int) endDate.toEpochDay());
+            return this;
+        }
+
+        void remove(long numSkier) {
+            int slot = find(numSkier);
+            if (slot >= 0) {
+                removeAt(slot);
+            }
+        }
+
+        /* Subscription changes are rare : a scan of the primitive array is cheaper than a second table */
+        void updateWindow(long numSub, LocalDate startDate, LocalDate endDate) {
+            for (int slot = 0; slot < subscriptions.length; slot++) {
+                if (subscriptions[slot] == numSub && skiers[slot] != EMPTY) {
+                    starts[slot] = (int) startDate.toEpochDay();
+                    ends[slot] = endDate == null ? NO_END : (int) endDate.toEpochDay();
+                    return;
+                }
+            }
+        }
+
+        void removeSubscription(long numSub) {
+            for (int slot = 0; slot < subscriptions.length; slot++) {
+                if (subscriptions[slot] == numSub && skiers[slot] != EMPTY) {
+                    removeAt(slot);
+                    return;
+                }
+            }
+        }
+
+        void insert(long numSkier, long numSub, int start, int end) {
+            int slot = home(numSkier);
+            while (skiers[slot] != EMPTY && skiers[slot] != numSkier) {
+                slot = (slot + 1) & mask;
+            }
+            if (skiers[slot] == EMPTY) {
+                size++;
+            }
+            skiers[slot] = numSkier;
+            subscriptions[slot] = numSub;
+            starts[slot] = start;
+            ends[slot] = end;
+        }
+
+        /* Pulls back the following entries of the probe run so that no lookup stops early */
+        private void removeAt(int slot) {
+            int gap = slot;
+            for (int next = (slot + 1) & mask; skiers[next] != EMPTY; next = (next + 1) & mask) {
+                int home = home(skiers[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    skiers[gap] = skiers[next];
+                    subscriptions[gap] = subscriptions[next];
+                    starts[gap] = starts[next];
+                    ends[gap] = ends[next];
+                    gap = next;
+                }
+            }
+            skiers[gap] = EMPTY;
+            subscriptions[gap] = EMPTY;
+            size--;
+        }
+
+        /* Sequential ids would cluster without mixing */
+        private int home(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package tn.esprit.spring.indexes;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.zip.CRC32;
+
+/**
+ * Periodic on-disk copy of the GatePassIndex, read back at start-up so a restarted node
+ * validates passes right away instead of waiting for the first rebuild from the database.
+ * The entries are loaded into the index's on-heap table, the one subscription events update,
+ * so the file is read with plain channel reads rather than mapped.
+ *
+ * Layout (big endian) : a 32 byte header - magic, format version, write time (epoch ms),
+ * entry count, CRC32 of the entries - followed by one 24 byte entry per skier
+ * (numSkier, numSub, start and end epoch days). A snapshot with another magic or version,
+ * a bad checksum or older than max-age is ignored and the index is built from the database
+ * as before. Files are written next to the target and renamed over it, so a crash never
+ * leaves a half written snapshot behind.
+ */
+@Slf4j
+@Component
+public class GatePassSnapshot {
+
+    static final int MAGIC = 0x47415445; // "GATE"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int ENTRY_BYTES = 24;
+
+    private final GatePassIndex gatePassIndex;
+    private final Path file;
+    private final Duration maxAge;
+
+    public GatePassSnapshot(GatePassIndex gatePassIndex,
+                            @Value("${indexes.gate-passes.snapshot-file:gate-passes.snap}") Path file,
+                            @Value("${indexes.gate-passes.snapshot-max-age:PT12H}") Duration maxAge) {
+        this.gatePassIndex = gatePassIndex;
+        this.file = file;
+        this.maxAge = maxAge;
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            GatePassIndex.Table table = read();
+            if (table != null) {
+                gatePassIndex.restore(table);
+                log.info("Gate pass index restored from " + file + " with " + table.size + " skiers");
+            }
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Ignoring gate pass snapshot " + file + " : " + exception.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${indexes.gate-passes.snapshot-ms:60000}",
+            initialDelayString = "${indexes.gate-passes.snapshot-ms:60000}")
+    public void write() {
+        if (!gatePassIndex.isReady()) {
+            return;
+        }
+        try {
+            write(gatePassIndex.copyTable());
+        } catch (IOException exception) {
+            log.warn("Could not write gate pass snapshot " + file + " : " + exception.getMessage());
+        }
+    }
+
+    void write(GatePassIndex.Table table) throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(table.size * ENTRY_BYTES);
+        for (int slot = 0; slot < table.skiers.length; slot++) {
+            if (table.skiers[slot] != 0L) {
+                entries.putLong(table.skiers[slot])
+                        .putLong(table.subscriptions[slot])
+                        .putInt(table.starts[slot])
+                        .putInt(table.ends[slot]);
+            }
+        }
+        entries.flip();
+        CRC32 crc = new CRC32();
+        crc.update(entries.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(System.currentTimeMillis())
+                .putInt(table.size)
+                .putInt(0)
+                .putLong(crc.getValue());
+        header.flip();
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining() || entries.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, entries});
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /* The snapshot as a table, or null when it must not be used */
+    GatePassIndex.Table read() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() < HEADER_BYTES || !readFully(channel, header)) {
+                log.warn("Gate pass snapshot " + file + " is truncated");
+                return null;
+            }
+            int magic = header.getInt();
+            int version = header.getInt();
+            long writtenAt = header.getLong();
+            int count = header.getInt();
+            header.getInt();
+            long checksum = header.getLong();
+            if (magic != MAGIC || version != VERSION) {
+                log.warn("Gate pass snapshot " + file + " has an unknown format (version " + version + ")");
+                return null;
+            }
+            if (System.currentTimeMillis() - writtenAt > maxAge.toMillis()) {
+                log.info("Gate pass snapshot " + file + " is too old to be used");
+                return null;
+            }
+            if (count < 0 || channel.size() != HEADER_BYTES + (long) count * ENTRY_BYTES) {
+                log.warn("Gate pass snapshot " + file + " is truncated");
+                return null;
+            }
+            ByteBuffer entries = ByteBuffer.allocate(Math.multiplyExact(count, ENTRY_BYTES));
+            if (!readFully(channel, entries)) {
+                log.warn("Gate pass snapshot " + file + " is truncated");
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(entries.duplicate());
+            if (crc.getValue() != checksum) {
+                log.warn("Gate pass snapshot " + file + " has a bad checksum");
+                return null;
+            }
+            GatePassIndex.Table table = new GatePassIndex.Table(GatePassIndex.Table.capacityFor(count));
+            for (int i = 0; i < count; i++) {
+                table.insert(entries.getLong(), entries.getLong(), entries.getInt(), entries.getInt());
+            }
+            return table;
+        }
+    }
+
+    /* Fills the buffer from the channel position and flips it, false when the file ends first */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,192 @@
+package tn.esprit.spring.indexes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Instructor;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weeks in which each instructor has registrations, per support, as one 64 bit mask
+ * (bit n set = week n). Built from the database when the application is ready, kept up
+ * to date by the services on every registration / course / instructor write, and rebuilt
+ * periodically to pick up writes made by other nodes.
+ *
+ * Reads never lock : each instructor maps to an immutable array of masks (one per support)
+ * that is replaced as a whole. Courses having a week outside 0..63 are not indexed and the
+ * instructors teaching them are answered from the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InstructorWeekIndex {
+
+    private static final int MAX_WEEK = 63;
+
+    private final IRegistrationRepository registrationRepository;
+    private final ICourseRepository courseRepository;
+    private final IInstructorRepository instructorRepository;
+
+    /* Read side */
+    private final Map<Long, long[]> masksByInstructor = new ConcurrentHashMap<>();
+    private final Set<Long> overflowInstructors = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    /* Write side, guarded by "this" */
+    private final Map<Long, Long> weeksByCourse = new HashMap<>();
+    private final Map<Long, Support> supportByCourse = new HashMap<>();
+    private final Map<Long, Long> instructorByCourse = new HashMap<>();
+    private final Map<Long, Set<Long>> coursesByInstructor = new HashMap<>();
+    private final Set<Long> overflowCourses = new HashSet<>();
+
+    /**
+     * Distinct weeks in ascending order, or null when the index cannot answer
+     * (not built yet, or a week out of the mask range).
+     */
+    public List<Integer> weeks(Long numInstructor, Support support) {
+        if (!ready || overflowInstructors.contains(numInstructor)) {
+            return null;
+        }
+        long[] masks = masksByInstructor.get(numInstructor);
+        if (masks == null) {
+            return Collections.emptyList();
+        }
+        long mask = masks[support.ordinal()];
+        List<Integer> weeks = new ArrayList<>(Long.bitCount(mask));
+        while (mask != 0) {
+            weeks.add(Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+        return weeks;
+    }
+
+    public synchronized void registrationAdded(Long numCourse, int numWeek) {
+        if (numCourse == null) {
+            return;
+        }
+        addWeek(numCourse, numWeek);
+        refreshInstructor(instructorByCourse.get(numCourse));
+    }
+
+    /* A registration moved from one course to another : the old course weeks are reloaded */
+    public synchronized void registrationMoved(Long fromNumCourse, Long toNumCourse, int numWeek) {
+        if (fromNumCourse != null && !fromNumCourse.equals(toNumCourse)) {
+            reloadCourseWeeks(fromNumCourse);
+            refreshInstructor(instructorByCourse.get(fromNumCourse));
+        }
+        registrationAdded(toNumCourse, numWeek);
+    }
+
+    public synchronized void courseSaved(Course course) {
+        if (course == null || course.getNumCourse() == null) {
+            return;
+        }
+        supportByCourse.put(course.getNumCourse(), course.getSupport());
+        refreshInstructor(instructorByCourse.get(course.getNumCourse()));
+    }
+
+    public synchronized void instructorSaved(Instructor instructor) {
+        Long numInstructor = instructor.getNumInstructor();
+        Set<Long> previous = coursesByInstructor.remove(numInstructor);
+        if (previous != null) {
+            previous.forEach(instructorByCourse::remove);
+        }
+        Set<Long> courses = new HashSet<>();
+        if (instructor.getCourses() != null) {
+            for (Course course : instructor.getCourses()) {
+                if (course != null && course.getNumCourse() != null) {
+                    courses.add(course.getNumCourse());
+                    supportByCourse.put(course.getNumCourse(), course.getSupport());
+                    instructorByCourse.put(course.getNumCourse(), numInstructor);
+                }
+            }
+        }
+        coursesByInstructor.put(numInstructor, courses);
+        refreshInstructor(numInstructor);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${indexes.instructor-weeks.rebuild-ms:600000}",
+            initialDelayString = "${indexes.instructor-weeks.rebuild-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        weeksByCourse.clear();
+        supportByCourse.clear();
+        instructorByCourse.clear();
+        coursesByInstructor.clear();
+        overflowCourses.clear();
+
+        for (Object[] row : courseRepository.findCourseSupports()) {
+            supportByCourse.put((Long) row[0], (Support) row[1]);
+        }
+        for (Object[] row : registrationRepository.findDistinctCourseWeeks()) {
+            addWeek((Long) row[0], (Integer) row[1]);
+        }
+        for (Object[] row : instructorRepository.findInstructorCoursePairs()) {
+            Long numInstructor = (Long) row[0];
+            Long numCourse = (Long) row[1];
+            instructorByCourse.put(numCourse, numInstructor);
+            coursesByInstructor.computeIfAbsent(numInstructor, k -> new HashSet<>()).add(numCourse);
+        }
+
+        masksByInstructor.keySet().retainAll(coursesByInstructor.keySet());
+        overflowInstructors.retainAll(coursesByInstructor.keySet());
+        coursesByInstructor.keySet().forEach(this::refreshInstructor);
+        ready = true;
+        log.info("Instructor week index built for " + coursesByInstructor.size() + " instructors in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void addWeek(Long numCourse, int numWeek) {
+        if (numWeek < 0 || numWeek > MAX_WEEK) {
+            overflowCourses.add(numCourse);
+            return;
+        }
+        weeksByCourse.merge(numCourse, 1L << numWeek, (a, b) -> a | b);
+    }
+
+    private void reloadCourseWeeks(Long numCourse) {
+        weeksByCourse.remove(numCourse);
+        overflowCourses.remove(numCourse);
+        for (Integer week : registrationRepository.findDistinctWeeksByCourse(numCourse)) {
+            addWeek(numCourse, week);
+        }
+    }
+
+    private void refreshInstructor(Long numInstructor) {
+        if (numInstructor == null) {
+            return;
+        }
+        long[] masks = new long[Support.values().length];
+        boolean overflow = false;
+        for (Long numCourse : coursesByInstructor.getOrDefault(numInstructor, Collections.emptySet())) {
+            Support support = supportByCourse.get(numCourse);
+            overflow |= overflowCourses.contains(numCourse);
+            if (support != null) {
+                masks[support.ordinal()] |= weeksByCourse.getOrDefault(numCourse, 0L);
+            }
+        }
+        masksByInstructor.put(numInstructor, masks);
+        if (overflow) {
+            overflowInstructors.add(numInstructor);
+        } else {
+            overflowInstructors.remove(numInstructor);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package tn.esprit.spring.indexes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.PistePopularityDTO;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Number of skiers per piste, kept ranked (most skiers first, then by id) overall and per
+ * color, so the busiest pistes are read by walking the head of a sorted set instead of
+ * grouping the excursion table.
+ *
+ * Counters follow the skier and piste services, built when the application is ready and
+ * rebuilt periodically to pick up writes made by other nodes. Piste changes arriving while a
+ * rebuild reads the counts are replayed on the new ranking ; excursions changed meanwhile are
+ * settled against the snapshot of that read (see TouchedRows), since their +1 / -1 may already
+ * be in the counts.
+ */
+@Slf4j
+@Component
+public class PistePopularityIndex {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::skiers).reversed()
+            .thenComparingLong(Entry::numPiste);
+
+    private final IPisteRepository pisteRepository;
+    private final TransactionTemplate repeatableRead;
+
+    /* Guarded by "this" */
+    private final Map<Long, Entry> byPiste = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING);
+    private final Map<Color, NavigableSet<Entry>> rankingByColor = new EnumMap<>(Color.class);
+    /* Changes made while a rebuild reads the counts, null otherwise */
+    private List<Runnable> pendingDuringRebuild;
+    /* Excursions changed while a rebuild reads the counts, the state being the piste ; null otherwise */
+    private TouchedRows<Excursion, Long> touched;
+    private final Object rebuilding = new Object();
+    private volatile boolean ready;
+
+    public PistePopularityIndex(IPisteRepository pisteRepository, PlatformTransactionManager transactionManager) {
+        this.pisteRepository = pisteRepository;
+        this.repeatableRead = new TransactionTemplate(transactionManager);
+        this.repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.repeatableRead.setReadOnly(true);
+    }
+
+    /**
+     * The n busiest pistes, of the given color when not null, or null when the index cannot
+     * answer (not built yet).
+     */
+    public synchronized List<PistePopularityDTO> top(int n, Color color) {
+        if (!ready) {
+            return null;
+        }
+        NavigableSet<Entry> ranked = color == null ? ranking : rankingByColor.get(color);
+        List<PistePopularityDTO> top = new ArrayList<>(Math.min(n, byPiste.size()));
+        if (ranked != null) {
+            Iterator<Entry> entries = ranked.iterator();
+            while (top.size() < n && entries.hasNext()) {
+                Entry entry = entries.next();
+                top.add(new PistePopularityDTO(entry.numPiste(), entry.namePiste(), entry.color(), entry.skiers()));
+            }
+        }
+        return top;
+    }
+
+    /* A new piste starts with no skier, an updated one keeps its counter */
+    public synchronized void pisteSaved(Piste piste) {
+        Long numPiste = piste.getNumPiste();
+        if (numPiste == null) {
+            return;
+        }
+        String namePiste = piste.getNamePiste();
+        Color color = piste.getColor();
+        apply(() -> {
+            Entry previous = unrank(numPiste);
+            rank(new Entry(numPiste, namePiste, color, previous == null ? 0 : previous.skiers()));
+        });
+    }
+
+    public synchronized void pisteRemoved(Long numPiste) {
+        apply(() -> unrank(numPiste));
+    }
+
+    public synchronized void excursionAdded(Long numSkier, Long numPiste) {
+        addSkiers(numPiste, 1);
+        touched(numSkier, numPiste, numPiste);
+    }
+
+    public synchronized void excursionRemoved(Long numSkier, Long numPiste) {
+        addSkiers(numPiste, -1);
+        touched(numSkier, numPiste, null);
+    }
+
+    public synchronized void skiersCounted(Long numPiste, long skiers) {
+        apply(() -> {
+            Entry previous = unrank(numPiste);
+            if (previous != null) {
+                rank(previous.withSkiers(skiers));
+            }
+        });
+    }
+
+    /* Caller holds "this" */
+    private void apply(Runnable change) {
+        change.run();
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(change);
+        }
+    }
+
+    /* Caller holds "this" */
+    private void touched(Long numSkier, Long numPiste, Long state) {
+        if (touched != null && numSkier != null && numPiste != null) {
+            touched.touched(new Excursion(numSkier, numPiste), state);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${indexes.piste-popularity.rebuild-ms:3600000}",
+            initialDelayString = "${indexes.piste-popularity.rebuild-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuilding) {
+            long start = System.nanoTime();
+            TouchedRows<Excursion, Long> changed = new TouchedRows<>();
+            synchronized (this) {
+                pendingDuringRebuild = new ArrayList<>();
+                touched = changed;
+            }
+            int pistes;
+            try {
+                pistes = repeatableRead.execute(status -> {
+                    List<PistePopularityDTO> counts = pisteRepository.findPistePopularity();
+                    changed.settle(this, this::readExcursions, () -> {
+                        byPiste.clear();
+                        ranking.clear();
+                        rankingByColor.clear();
+                        for (PistePopularityDTO count : counts) {
+                            rank(new Entry(count.getNumPiste(), count.getNamePiste(), count.getColor(), count.getSkiers()));
+                        }
+                        pendingDuringRebuild.forEach(Runnable::run);
+                        changed.forEach((seen, latest) -> {
+                            if (seen != null) {
+                                addSkiers(seen, -1);
+                            }
+                            if (latest != null) {
+                                addSkiers(latest, 1);
+                            }
+                        });
+                        pendingDuringRebuild = null;
+                        touched = null;
+                    });
+                    return counts.size();
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingDuringRebuild = null;
+                    touched = null;
+                }
+                throw e;
+            }
+            ready = true;
+            log.info("Piste popularity index built with " + pistes + " pistes in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    private Map<Excursion, Long> readExcursions(Collection<Excursion> excursions) {
+        Set<Long> numSkiers = new HashSet<>();
+        excursions.forEach(excursion -> numSkiers.add(excursion.numSkier()));
+        Map<Excursion, Long> present = new HashMap<>();
+        for (Object[] row : pisteRepository.findExcursionsBySkiers(numSkiers)) {
+            Excursion excursion = new Excursion((Long) row[0], (Long) row[1]);
+            present.put(excursion, excursion.numPiste());
+        }
+        return present;
+    }
+
+    private void addSkiers(Long numPiste, long delta) {
+        Entry previous = unrank(numPiste);
+        if (previous != null) {
+            rank(previous.withSkiers(Math.max(0, previous.skiers() + delta)));
+        }
+    }
+
+    private void rank(Entry entry) {
+        byPiste.put(entry.numPiste(), entry);
+        ranking.add(entry);
+        if (entry.color() != null) {
+            rankingByColor.computeIfAbsent(entry.color(), color -> new TreeSet<>(RANKING)).add(entry);
+        }
+    }
+
+    private Entry unrank(Long numPiste) {
+        Entry previous = numPiste == null ? null : byPiste.remove(numPiste);
+        if (previous != null) {
+            ranking.remove(previous);
+            if (previous.color() != null) {
+                rankingByColor.get(previous.color()).remove(previous);
+            }
+        }
+        return previous;
+    }
+
+    private record Excursion(Long numSkier, Long numPiste) {
+    }
+
+    private record Entry(long numPiste, String namePiste, Color color, long skiers) {
+
+        Entry withSkiers(long skiers) {
+            return new Entry(numPiste, namePiste, color, skiers);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package tn.esprit.spring.indexes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.PisteSearchCriteria;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-criteria piste search over bitmaps. Pistes get a dense position (in numPiste order) ;
+ * each color is a BitSet of positions, length and slope are sorted arrays whose matching
+ * range, found by binary search, becomes a BitSet. Criteria are then combined with and / or.
+ *
+ * Readers use an immutable snapshot that is rebuilt as a whole on every piste write : there
+ * are a few hundred pistes and far more searches than writes. Built when the application is
+ * ready and rebuilt periodically to pick up writes made by other nodes ; writes arriving while
+ * a rebuild reads the pistes are replayed before the new snapshot is published.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PisteSearchIndex {
+
+    private final IPisteRepository pisteRepository;
+
+    /* Write side, guarded by "this" */
+    private final Map<Long, Piste> pistes = new HashMap<>();
+    /* Writes made while a rebuild reads the pistes, null otherwise ; guarded by "this" */
+    private List<Runnable> pendingDuringRebuild;
+    private final Object rebuilding = new Object();
+    /* Read side, null until built */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Matching pistes ordered by id, or null when the index cannot answer (not built yet).
+     */
+    public List<Piste> search(PisteSearchCriteria criteria) {
+        Snapshot current = snapshot;
+        return current == null ? null : current.search(criteria);
+    }
+
+    public synchronized void pisteSaved(Piste piste) {
+        Long numPiste = piste.getNumPiste();
+        if (numPiste == null) {
+            return;
+        }
+        Piste copy = copyOf(piste);
+        apply(() -> pistes.put(numPiste, copy));
+    }
+
+    public synchronized void pisteRemoved(Long numPiste) {
+        apply(() -> pistes.remove(numPiste));
+    }
+
+    /* Caller holds "this" */
+    private void apply(Runnable change) {
+        if (snapshot != null) {
+            change.run();
+            snapshot = new Snapshot(pistes.values());
+        }
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(change);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${indexes.piste-search.rebuild-ms:3600000}",
+            initialDelayString = "${indexes.piste-search.rebuild-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuilding) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                pendingDuringRebuild = new ArrayList<>();
+            }
+            List<Piste> all;
+            try {
+                all = pisteRepository.findAll();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingDuringRebuild = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pistes.clear();
+                for (Piste piste : all) {
+                    pistes.put(piste.getNumPiste(), copyOf(piste));
+                }
+                pendingDuringRebuild.forEach(Runnable::run);
+                pendingDuringRebuild = null;
+                snapshot = new Snapshot(pistes.values());
+            }
+            log.info("Piste search index built with " + all.size() + " pistes in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /* Indexed entries are detached copies, never managed entities */
+    private static Piste copyOf(Piste piste) {
+        return new Piste(piste.getNumPiste(), piste.getNamePiste(), piste.getColor(),
+                piste.getLength(), piste.getSlope(), null);
+    }
+
+    static final class Snapshot {
+
+        private final Piste[] byPosition;
+        private final BitSet all;
+        private final Map<Color, BitSet> byColor = new EnumMap<>(Color.class);
+        private final SortedColumn lengths;
+        private final SortedColumn slopes;
+
+        Snapshot(Iterable<Piste> pistes) {
+            List<Piste> ordered = new ArrayList<>();
+            pistes.forEach(ordered::add);
+            ordered.sort(Comparator.comparing(Piste::getNumPiste));
+            byPosition = ordered.toArray(new Piste[0]);
+            all = new BitSet(byPosition.length);
+            all.set(0, byPosition.length);
+            int[] lengthValues = new int[byPosition.length];
+            int[] slopeValues = new int[byPosition.length];
+            for (int position = 0; position < byPosition.length; position++) {
+                Piste piste = byPosition[position];
+                if (piste.getColor() != null) {
+                    byColor.computeIfAbsent(piste.getColor(), color -> new BitSet(byPosition.length)).set(position);
+                }
+                lengthValues[position] = piste.getLength();
+                slopeValues[position] = piste.getSlope();
+            }
+            lengths = new SortedColumn(lengthValues);
+            slopes = new SortedColumn(slopeValues);
+        }
+
+        List<Piste> search(PisteSearchCriteria criteria) {
+            List<BitSet> predicates = new ArrayList<>(3);
+            if (criteria.hasColors()) {
+                BitSet colors = new BitSet(byPosition.length);
+                for (Color color : criteria.getColors()) {
+                    BitSet sameColor = byColor.get(color);
+                    if (sameColor != null) {
+                        colors.or(sameColor);
+                    }
+                }
+                predicates.add(colors);
+            }
+            if (criteria.hasLength()) {
+                predicates.add(lengths.between(criteria.getMinLength(), criteria.getMaxLength()));
+            }
+            if (criteria.hasSlope()) {
+                predicates.add(slopes.between(criteria.getMinSlope(), criteria.getMaxSlope()));
+            }
+
+            BitSet matching = predicates.isEmpty() ? all : predicates.get(0);
+            for (int i = 1; i < predicates.size(); i++) {
+                if (criteria.isAny()) {
+                    matching.or(predicates.get(i));
+                } else {
+                    matching.and(predicates.get(i));
+                }
+            }
+            List<Piste> result = new ArrayList<>(matching.cardinality());
+            for (int position = matching.nextSetBit(0); position >= 0; position = matching.nextSetBit(position + 1)) {
+                result.add(byPosition[position]);
+            }
+            return result;
+        }
+    }
+
+    /* Values sorted ascending with the position each one came from */
+    static final class SortedColumn {
+
+        private final int[] values;
+        private final int[] positions;
+
+        SortedColumn(int[] valueByPosition) {
+            long[] packed = new long[valueByPosition.length];
+            for (int position = 0; position < valueByPosition.length; position++) {
+                packed[position] = ((long) valueByPosition[position] << 32) | position;
+            }
+            Arrays.sort(packed);
+            values = new int[packed.length];
+            positions = new int[packed.length];
+            for (int i = 0; i < packed.length; i++) {
+                values[i] = (int) (packed[i] >> 32);
+                positions[i] = (int) packed[i];
+            }
+        }
+
+        BitSet between(Integer min, Integer max) {
+            int from = firstAtLeast(min == null ? Integer.MIN_VALUE : min);
+            int to = max == null ? values.length : firstAtLeast(max == Integer.MAX_VALUE ? max : max + 1);
+            BitSet matching = new BitSet();
+            for (int i = from; i < to; i++) {
+                matching.set(positions[i]);
+            }
+            return matching;
+        }
+
+        private int firstAtLeast(int value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package tn.esprit.spring.indexes;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.entities.RevenueAggregate;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.events.SubscriptionRemovedEvent;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.IRevenueAggregateRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running sum and count of subscription prices per type, so the monthly recurring revenue
+ * is read in O(1) instead of three aggregate scans of the subscription table.
+ *
+ * Each SubscriptionSavedEvent is applied as a delta. The aggregates are saved every minute and
+ * recomputed from the subscription table on a slow cadence, which also absorbs the changes
+ * made by other nodes. Subscriptions changed while a reconcile reads the table are settled
+ * against the snapshot of that read (see TouchedRows) rather than added again. At start-up the persisted aggregates are served at once, then
+ * reconciled since they may be up to a cadence old.
+ */
+@Slf4j
+@Component
+public class RecurringRevenueAggregates {
+
+    private static final TypeSubscription[] TYPES = TypeSubscription.values();
+
+    private final ISubscriptionRepository subscriptionRepository;
+    private final IRevenueAggregateRepository aggregateRepository;
+    private final TransactionTemplate repeatableRead;
+
+    /* Guarded by "this" */
+    private final double[] totals = new double[TYPES.length];
+    private final long[] counts = new long[TYPES.length];
+    /* Subscriptions changed while a reconcile reads the table, null otherwise */
+    private TouchedRows<Long, Priced> touched;
+    private final Object reconciling = new Object();
+
+    public RecurringRevenueAggregates(ISubscriptionRepository subscriptionRepository,
+                                      IRevenueAggregateRepository aggregateRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.repeatableRead = new TransactionTemplate(transactionManager);
+        this.repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.repeatableRead.setReadOnly(true);
+        Gauge.builder("subscriptions.mrr", this, RecurringRevenueAggregates::monthlyRecurringRevenue)
+                .description("Monthly recurring revenue")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionSaved(SubscriptionSavedEvent event) {
+        Subscription previous = event.getPrevious();
+        if (previous == null) {
+            added(event.getSubscription());
+        } else {
+            replaced(previous.getTypeSub(), previous.getPrice(), event.getSubscription());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionRemoved(SubscriptionRemovedEvent event) {
+        Subscription removed = event.getSubscription();
+        synchronized (this) {
+            add(removed.getTypeSub(), removed.getPrice(), -1);
+            touched(removed.getNumSub(), null);
+        }
+    }
+
+    public synchronized void added(Subscription subscription) {
+        add(subscription.getTypeSub(), subscription.getPrice(), 1);
+        touched(subscription.getNumSub(), Priced.of(subscription));
+    }
+
+    public synchronized void replaced(TypeSubscription oldType, Float oldPrice, Subscription subscription) {
+        add(oldType, oldPrice, -1);
+        add(subscription.getTypeSub(), subscription.getPrice(), 1);
+        touched(subscription.getNumSub(), Priced.of(subscription));
+    }
+
+    /* Average monthly price of each type, a type without subscription contributing 0 */
+    public synchronized double monthlyRecurringRevenue() {
+        return average(TypeSubscription.MONTHLY)
+                + average(TypeSubscription.SEMESTRIEL) / 6
+                + average(TypeSubscription.ANNUAL) / 12;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<RevenueAggregate> persisted = new ArrayList<>();
+        aggregateRepository.findAll().forEach(persisted::add);
+        synchronized (this) {
+            for (RevenueAggregate aggregate : persisted) {
+                totals[aggregate.getTypeSub().ordinal()] = aggregate.getTotal();
+                counts[aggregate.getTypeSub().ordinal()] = aggregate.getCount();
+            }
+        }
+        if (!persisted.isEmpty()) {
+            log.info("Recurring revenue aggregates loaded, MRR = " + monthlyRecurringRevenue());
+        }
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${aggregates.revenue.persist-ms:60000}",
+            initialDelayString = "${aggregates.revenue.persist-ms:60000}")
+    public void persist() {
+        List<RevenueAggregate> snapshot = new ArrayList<>(TYPES.length);
+        synchronized (this) {
+            for (TypeSubscription type : TYPES) {
+                snapshot.add(new RevenueAggregate(type, totals[type.ordinal()], counts[type.ordinal()]));
+            }
+        }
+        aggregateRepository.saveAll(snapshot);
+    }
+
+    @Scheduled(cron = "${aggregates.revenue.reconcile-cron:0 0 * * * *}")
+    public void reconcile() {
+        synchronized (reconciling) {
+            reconcileFromDatabase();
+        }
+        persist();
+        log.info("Recurring revenue aggregates reconciled, MRR = " + monthlyRecurringRevenue());
+    }
+
+    private void reconcileFromDatabase() {
+        TouchedRows<Long, Priced> changed = new TouchedRows<>();
+        synchronized (this) {
+            touched = changed;
+        }
+        try {
+            repeatableRead.executeWithoutResult(status -> {
+                double[] dbTotals = new double[TYPES.length];
+                long[] dbCounts = new long[TYPES.length];
+                for (Object[] row : subscriptionRepository.sumAndCountByTypeSub()) {
+                    if (row[0] == null) {
+                        continue;
+                    }
+                    int type = ((TypeSubscription) row[0]).ordinal();
+                    dbTotals[type] = row[1] == null ? 0 : ((Number) row[1]).doubleValue();
+                    dbCounts[type] = ((Number) row[2]).longValue();
+                }
+                changed.settle(this, this::readPrices, () -> {
+                    System.arraycopy(dbTotals, 0, totals, 0, TYPES.length);
+                    System.arraycopy(dbCounts, 0, counts, 0, TYPES.length);
+                    changed.forEach((seen, latest) -> {
+                        if (seen != null) {
+                            add(seen.type(), seen.price(), -1);
+                        }
+                        if (latest != null) {
+                            add(latest.type(), latest.price(), 1);
+                        }
+                    });
+                    touched = null;
+                });
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                touched = null;
+            }
+            throw e;
+        }
+    }
+
+    private Map<Long, Priced> readPrices(Collection<Long> numSubs) {
+        Map<Long, Priced> prices = new HashMap<>();
+        subscriptionRepository.findAllById(numSubs)
+                .forEach(subscription -> prices.put(subscription.getNumSub(), Priced.of(subscription)));
+        return prices;
+    }
+
+    /* Caller holds "this" */
+    private void touched(Long numSub, Priced state) {
+        if (touched != null && numSub != null) {
+            touched.touched(numSub, state);
+        }
+    }
+
+    /* Caller holds "this" */
+    private void add(TypeSubscription type, Float price, int sign) {
+        if (type == null) {
+            return;
+        }
+        if (price != null) {
+            totals[type.ordinal()] += sign * price;
+        }
+        counts[type.ordinal()] += sign;
+    }
+
+    private double average(TypeSubscription type) {
+        long count = counts[type.ordinal()];
+        return count == 0 ? 0 : totals[type.ordinal()] / count;
+    }
+
+    private record Priced(TypeSubscription type, Float price) {
+
+        static Priced of(Subscription subscription) {
+            return new Priced(subscription.getTypeSub(), subscription.getPrice());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package tn.esprit.spring.indexes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.CatalogVersion;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.ICatalogVersionRepository;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.List;
+
+/**
+ * Pistes and courses served from memory : both are small, read on every booking screen and
+ * rarely written.
+ *
+ * Each catalog is an immutable CatalogSnapshot swapped on write, so reads never lock. Every
+ * write also bumps a shared version row ; each node polls it and reloads from the database
+ * when it moved, which is how writes (or a forced reload) reach the other nodes. The writing
+ * node takes the version of its own bump as loaded, unless another change came in between.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceCatalog {
+
+    static final String CATALOG = "catalog";
+
+    private final IPisteRepository pisteRepository;
+    private final ICourseRepository courseRepository;
+    private final ICatalogVersionRepository catalogVersionRepository;
+
+    /* Null until loaded */
+    private volatile CatalogSnapshot<Piste> pistes;
+    private volatile CatalogSnapshot<Course> courses;
+    private volatile long loadedVersion = -1;
+
+    /* Null when not loaded yet */
+    public List<Piste> pistes() {
+        CatalogSnapshot<Piste> current = pistes;
+        return current == null ? null : current.all();
+    }
+
+    public Piste piste(Long numPiste) {
+        CatalogSnapshot<Piste> current = pistes;
+        return current == null ? null : current.get(numPiste);
+    }
+
+    public List<Course> courses() {
+        CatalogSnapshot<Course> current = courses;
+        return current == null ? null : current.all();
+    }
+
+    public Course course(Long numCourse) {
+        CatalogSnapshot<Course> current = courses;
+        return current == null ? null : current.get(numCourse);
+    }
+
+    public void pisteSaved(Piste piste) {
+        synchronized (this) {
+            if (pistes != null) {
+                pistes = pistes.with(copyOf(piste));
+            }
+        }
+        changed();
+    }
+
+    public void pisteRemoved(Long numPiste) {
+        synchronized (this) {
+            if (pistes != null) {
+                pistes = pistes.without(numPiste);
+            }
+        }
+        changed();
+    }
+
+    public void courseSaved(Course course) {
+        synchronized (this) {
+            if (courses != null) {
+                courses = courses.with(copyOf(course));
+            }
+        }
+        changed();
+    }
+
+    /* Makes every node, this one included, reload from the database */
+    public void requestReload() {
+        publish();
+        reload(currentVersion());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${catalog.poll-ms:5000}", initialDelayString = "${catalog.poll-ms:5000}")
+    public void refresh() {
+        long version = currentVersion();
+        if (version != loadedVersion) {
+            reload(version);
+        }
+    }
+
+    private long currentVersion() {
+        return catalogVersionRepository.findById(CATALOG).map(CatalogVersion::getVersion).orElse(0L);
+    }
+
+    private void reload(long version) {
+        long start = System.nanoTime();
+        List<Piste> loadedPistes = pisteRepository.findAll().stream().map(ReferenceCatalog::copyOf).toList();
+        List<Course> loadedCourses = courseRepository.findAll().stream().map(ReferenceCatalog::copyOf).toList();
+        synchronized (this) {
+            pistes = CatalogSnapshot.of(loadedPistes, Piste::getNumPiste);
+            courses = CatalogSnapshot.of(loadedCourses, Course::getNumCourse);
+            loadedVersion = version;
+        }
+        log.info("Catalog version " + version + " loaded with " + loadedPistes.size() + " pistes and "
+                + loadedCourses.size() + " courses in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /* The local snapshot already holds the change, so its own bump needs no reload */
+    private void changed() {
+        long version = publish();
+        synchronized (this) {
+            if (version > 0 && loadedVersion == version - 1) {
+                loadedVersion = version;
+            }
+        }
+    }
+
+    /* The new version, or -1 when it could not be published */
+    private long publish() {
+        try {
+            return catalogVersionRepository.bumpAndGet(CATALOG);
+        } catch (DataAccessException exception) {
+            log.warn("Could not publish the catalog change, other nodes will see it with the next one : "
+                    + exception.getMessage());
+            return -1;
+        }
+    }
+
+    /* Catalog entries are detached copies, never managed entities */
+    private static Piste copyOf(Piste piste) {
+        return new Piste(piste.getNumPiste(), piste.getNamePiste(), piste.getColor(),
+                piste.getLength(), piste.getSlope(), null);
+    }
+
+    private static Course copyOf(Course course) {
+        return new Course(course.getNumCourse(), course.getLevel(), course.getTypeCourse(), course.getSupport(),
+                course.getPrice(), course.getTimeSlot(), course.getCapacity(), null);
+    }
+}
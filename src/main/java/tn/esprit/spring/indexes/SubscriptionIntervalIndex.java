@@ -0,0 +1,203 @@
+package tn.esprit.spring.indexes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.events.SubscriptionRemovedEvent;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Subscriptions ordered by start date, for "started between" and "active during" queries
+ * served without a database round trip.
+ *
+ * Overlap queries use the longest indexed duration as a bound : a subscription active during
+ * [from, to] started between from - longest and to, so only that slice of the start date tree
+ * is scanned and filtered on the end date. Passes last at most a year, which keeps it tight.
+ *
+ * Kept in sync through the subscription events, built when the application is ready and
+ * rebuilt periodically to pick up writes made by other nodes. Events arriving while a rebuild
+ * reads the database are logged and replayed on the rebuilt maps before they are swapped in,
+ * since the rows read may predate them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubscriptionIntervalIndex {
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final ISubscriptionRepository subscriptionRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /* startDate -> (numSub -> subscription), guarded by lock */
+    private NavigableMap<LocalDate, NavigableMap<Long, Subscription>> byStartDate = new TreeMap<>();
+    private Map<Long, Subscription> byId = new HashMap<>();
+    private long longestDays;
+    /* Events applied while a rebuild reads the database, null otherwise ; guarded by lock */
+    private List<Runnable> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Subscription> startedBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<Subscription> result = new ArrayList<>();
+            if (from.isAfter(to)) {
+                return result;
+            }
+            for (NavigableMap<Long, Subscription> sameDay : byStartDate.subMap(from, true, to, true).values()) {
+                result.addAll(sameDay.values());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Subscription> activeDuring(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<Subscription> result = new ArrayList<>();
+            if (from.isAfter(to)) {
+                return result;
+            }
+            LocalDate earliestStart = from.minusDays(longestDays);
+            for (NavigableMap<Long, Subscription> sameDay : byStartDate.subMap(earliestStart, true, to, true).values()) {
+                for (Subscription subscription : sameDay.values()) {
+                    if (subscription.getEndDate() != null && !subscription.getEndDate().isBefore(from)) {
+                        result.add(subscription);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionSaved(SubscriptionSavedEvent event) {
+        Subscription subscription = copyOf(event.getSubscription());
+        apply(() -> {
+            remove(subscription.getNumSub());
+            add(subscription);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionRemoved(SubscriptionRemovedEvent event) {
+        Long numSub = event.getSubscription().getNumSub();
+        apply(() -> remove(numSub));
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void logChanges(boolean logging) {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = logging ? new ArrayList<>() : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${indexes.subscription-intervals.rebuild-ms:3600000}",
+            initialDelayString = "${indexes.subscription-intervals.rebuild-ms:3600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        List<Subscription> all = new ArrayList<>();
+        logChanges(true);
+        try {
+            List<Subscription> chunk;
+            Long after = 0L;
+            do {
+                chunk = subscriptionRepository.findByNumSubGreaterThanOrderByNumSubAsc(after, Limit.of(LOAD_CHUNK_SIZE));
+                for (Subscription subscription : chunk) {
+                    all.add(copyOf(subscription));
+                    after = subscription.getNumSub();
+                }
+            } while (chunk.size() == LOAD_CHUNK_SIZE);
+        } catch (RuntimeException e) {
+            logChanges(false);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            byStartDate = new TreeMap<>();
+            byId = new HashMap<>(all.size() * 2);
+            longestDays = 0;
+            all.forEach(this::add);
+            pendingDuringRebuild.forEach(Runnable::run);
+            pendingDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Subscription interval index built with " + all.size() + " subscriptions in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void add(Subscription subscription) {
+        if (subscription.getNumSub() == null || subscription.getStartDate() == null) {
+            return;
+        }
+        byId.put(subscription.getNumSub(), subscription);
+        byStartDate.computeIfAbsent(subscription.getStartDate(), day -> new TreeMap<>())
+                .put(subscription.getNumSub(), subscription);
+        if (subscription.getEndDate() != null) {
+            longestDays = Math.max(longestDays,
+                    ChronoUnit.DAYS.between(subscription.getStartDate(), subscription.getEndDate()));
+        }
+    }
+
+    private void remove(Long numSub) {
+        Subscription previous = numSub == null ? null : byId.remove(numSub);
+        if (previous == null) {
+            return;
+        }
+        NavigableMap<Long, Subscription> sameDay = byStartDate.get(previous.getStartDate());
+        sameDay.remove(numSub);
+        if (sameDay.isEmpty()) {
+            byStartDate.remove(previous.getStartDate());
+        }
+    }
+
+    /* Indexed entries are detached copies, never managed entities */
+    private static Subscription copyOf(Subscription subscription) {
+        return new Subscription(subscription.getNumSub(), subscription.getStartDate(),
+                subscription.getEndDate(), subscription.getPrice(), subscription.getTypeSub());
+    }
+}
@@ -0,0 +1,62 @@
+package tn.esprit.spring.indexes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Rows changed while a rebuild reads its aggregate. The change reaches the index after its
+ * commit, so the read may or may not have seen it : replaying it as a delta counts it twice
+ * whenever the commit came first. Instead the latest state of each row is kept, the state the
+ * read saw is fetched in the same snapshot, and the rebuilt aggregate moves from the one to the
+ * other.
+ *
+ * A null state is a row that does not exist. Guarded by the lock of the owning index.
+ */
+final class TouchedRows<K, S> {
+
+    private final Map<K, S> latest = new LinkedHashMap<>();
+    private final Map<K, S> seen = new HashMap<>();
+
+    void touched(K key, S state) {
+        latest.put(key, state);
+    }
+
+    /**
+     * Reads the state the snapshot holds for every touched row, until none is left unread, then
+     * runs the swap with the lock still held so no change slips in between. The reader runs
+     * without the lock, in the transaction of the aggregate read, and leaves out absent rows.
+     */
+    void settle(Object lock, Function<Collection<K>, Map<K, S>> readInSnapshot, Runnable swap) {
+        while (true) {
+            List<K> unread = new ArrayList<>();
+            synchronized (lock) {
+                for (K key : latest.keySet()) {
+                    if (!seen.containsKey(key)) {
+                        unread.add(key);
+                    }
+                }
+                if (unread.isEmpty()) {
+                    swap.run();
+                    return;
+                }
+            }
+            Map<K, S> states = readInSnapshot.apply(unread);
+            synchronized (lock) {
+                for (K key : unread) {
+                    seen.put(key, states.get(key));
+                }
+            }
+        }
+    }
+
+    /* Caller holds the lock : the state the read saw, then the latest one, for each touched row */
+    void forEach(BiConsumer<S, S> seenThenLatest) {
+        latest.forEach((key, state) -> seenThenLatest.accept(seen.get(key), state));
+    }
+}
@@ -0,0 +1,29 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.entities.CatalogVersion;
+
+public interface ICatalogVersionRepository extends CrudRepository<CatalogVersion, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update CatalogVersion v set v.version = v.version + 1 where v.catalog = :catalog")
+    int bump(@Param("catalog") String catalog);
+
+    /*
+     * The version after this bump : the row stays locked until commit, so no other bump
+     * interleaves. Its own transaction, since it is called from after-commit callbacks.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    default long bumpAndGet(String catalog) {
+        if (bump(catalog) == 0) {
+            return save(new CatalogVersion(catalog, 1)).getVersion();
+        }
+        return findById(catalog).map(CatalogVersion::getVersion).orElseThrow();
+    }
+}
@@ -1,16 +1,28 @@
 package tn.esprit.spring.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ICourseRepository extends JpaRepository<Course, Long> {
 
+    @Query("select c.numCourse, c.support from Course c")
+    List<Object[]> findCourseSupports();
 
+    List<Course> findByNumCourseGreaterThanOrderByNumCourseAsc(Long numCourse, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Course c order by c.numCourse")
+    Stream<Course> streamAllByOrderByNumCourse();
 
 }
@@ -0,0 +1,48 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.entities.CourseWeekCapacity;
+
+public interface ICourseWeekCapacityRepository extends JpaRepository<CourseWeekCapacity, Long> {
+
+    /* Creates the counter of a course week, seeded with its registrations, or leaves the existing one alone */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into course_week_capacity (num_course, num_week, taken, capacity) " +
+            "select :numCourse, :numWeek, count(*), :capacity from registration r " +
+            "where r.course_num_course = :numCourse and r.num_week = :numWeek " +
+            "on duplicate key update num_week = num_week", nativeQuery = true)
+    int createCounter(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek, @Param("capacity") int capacity);
+
+    /* Returns 1 when a seat was taken, 0 when the course week is full (or has no counter yet) */
+    @Transactional
+    @Modifying
+    @Query("update CourseWeekCapacity c set c.taken = c.taken + 1 " +
+            "where c.course.numCourse = :numCourse and c.numWeek = :numWeek and c.taken < c.capacity")
+    int reserveSeat(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek);
+
+    /* Takes "seats" seats at once, or none : returns 1 when they were taken */
+    @Transactional
+    @Modifying
+    @Query("update CourseWeekCapacity c set c.taken = c.taken + :seats " +
+            "where c.course.numCourse = :numCourse and c.numWeek = :numWeek and c.taken + :seats <= c.capacity")
+    int reserveSeats(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek, @Param("seats") int seats);
+
+    @Query("select c.capacity - c.taken from CourseWeekCapacity c where c.course.numCourse = :numCourse and c.numWeek = :numWeek")
+    Integer findFreeSeats(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek);
+
+    @Transactional
+    @Modifying
+    @Query("update CourseWeekCapacity c set c.taken = c.taken - 1 " +
+            "where c.course.numCourse = :numCourse and c.numWeek = :numWeek and c.taken > 0")
+    int releaseSeat(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek);
+
+    @Transactional
+    @Modifying
+    @Query("update CourseWeekCapacity c set c.capacity = :capacity where c.course.numCourse = :numCourse")
+    int updateCapacity(@Param("numCourse") Long numCourse, @Param("capacity") int capacity);
+}
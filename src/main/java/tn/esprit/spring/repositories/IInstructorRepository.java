@@ -1,11 +1,33 @@
 package tn.esprit.spring.repositories;
 
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import tn.esprit.spring.entities.Instructor;
 
+import java.util.List;
+import java.util.stream.Stream;
 
 
 public interface IInstructorRepository extends JpaRepository<Instructor, Long> {
 
+    /* Courses are joined in the same select instead of one lazy load per instructor */
+    @Override
+    @EntityGraph(attributePaths = "courses")
+    List<Instructor> findAll();
+
+    List<Instructor> findByNumInstructorGreaterThanOrderByNumInstructorAsc(Long numInstructor, Limit limit);
+
+    @Query("select i.numInstructor, c.numCourse from Instructor i join i.courses c")
+    List<Object[]> findInstructorCoursePairs();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select i from Instructor i order by i.numInstructor")
+    Stream<Instructor> streamAllByOrderByNumInstructor();
+
 }
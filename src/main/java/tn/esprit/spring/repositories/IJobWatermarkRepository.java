@@ -0,0 +1,8 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+import tn.esprit.spring.entities.JobWatermark;
+
+public interface IJobWatermarkRepository extends CrudRepository<JobWatermark, String> {
+
+}
@@ -0,0 +1,14 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+import tn.esprit.spring.entities.PistePassageCount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface IPistePassageCountRepository extends CrudRepository<PistePassageCount, Long> {
+
+    List<PistePassageCount> findByNumPisteAndMinuteStartBetweenOrderByMinuteStart(Long numPiste,
+                                                                                 LocalDateTime from,
+                                                                                 LocalDateTime to);
+}
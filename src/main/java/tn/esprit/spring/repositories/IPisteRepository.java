@@ -1,9 +1,54 @@
 package tn.esprit.spring.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.PistePopularityDTO;
+import tn.esprit.spring.entities.Color;
 import tn.esprit.spring.entities.Piste;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface IPisteRepository extends JpaRepository<Piste, Long> {
 
+    List<Piste> findByNumPisteGreaterThanOrderByNumPisteAsc(Long numPiste, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select p from Piste p order by p.numPiste")
+    Stream<Piste> streamAllByOrderByNumPiste();
+
+    @Query("select new tn.esprit.spring.dto.PistePopularityDTO(p.numPiste, p.namePiste, p.color, count(s)) " +
+            "from Piste p left join p.skiers s group by p.numPiste, p.namePiste, p.color")
+    List<PistePopularityDTO> findPistePopularity();
+
+    @Query("select new tn.esprit.spring.dto.PistePopularityDTO(p.numPiste, p.namePiste, p.color, count(s)) " +
+            "from Piste p left join p.skiers s where (:color is null or p.color = :color) " +
+            "group by p.numPiste, p.namePiste, p.color order by count(s) desc, p.numPiste")
+    List<PistePopularityDTO> findTopPistes(@Param("color") Color color, Pageable pageable);
+
+    /* Every criteria combined with "and", a null bound being left out */
+    @Query("select p from Piste p where (:anyColor = true or p.color in :colors) " +
+            "and (:minLength is null or p.length >= :minLength) and (:maxLength is null or p.length <= :maxLength) " +
+            "and (:minSlope is null or p.slope >= :minSlope) and (:maxSlope is null or p.slope <= :maxSlope) " +
+            "order by p.numPiste")
+    List<Piste> searchPistes(@Param("anyColor") boolean anyColor, @Param("colors") Collection<Color> colors,
+                             @Param("minLength") Integer minLength, @Param("maxLength") Integer maxLength,
+                             @Param("minSlope") Integer minSlope, @Param("maxSlope") Integer maxSlope);
+
+    /* numPiste, skier count ; pistes without skier are left out */
+    @Query("select p.numPiste, count(s) from Piste p join p.skiers s where p.numPiste in :numPistes group by p.numPiste")
+    List<Object[]> countSkiersByPiste(@Param("numPistes") Collection<Long> numPistes);
+
+    /* numSkier, numPiste of every excursion of these skiers */
+    @Query("select s.numSkier, p.numPiste from Piste p join p.skiers s where s.numSkier in :skiers")
+    List<Object[]> findExcursionsBySkiers(@Param("skiers") Collection<Long> numSkiers);
+
 }
@@ -6,6 +6,7 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.entities.*;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IRegistrationRepository extends CrudRepository<Registration, Long> {
@@ -17,11 +18,24 @@ public interface IRegistrationRepository extends CrudRepository<Registration, Lo
             "where ins.numInstructor = :idIns and reg.course.support = :support")
     List<Integer> numWeeksCourseOfInstructorBySupport(@Param("idIns") Long numInstructor, @Param("support") Support support);
 
-    @Query("select count(distinct r) from Registration r " +
-            "where r.numWeek = ?1 and r.skier.numSkier = ?2 and r.course.numCourse = ?3")
-    long countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
+    @Query("select distinct r.course.numCourse, r.numWeek from Registration r where r.course is not null")
+    List<Object[]> findDistinctCourseWeeks();
 
-  //  long countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
+    @Query("select distinct r.numWeek from Registration r where r.course.numCourse = :numCourse")
+    List<Integer> findDistinctWeeksByCourse(@Param("numCourse") Long numCourse);
+
+    @Query("select r.course.numCourse, r.numWeek, count(r) from Registration r " +
+            "where r.course is not null group by r.course.numCourse, r.numWeek")
+    List<Object[]> countByCourseAndWeek();
+
+    /* numSkier, numCourse, numWeek, numRegistration */
+    @Query("select r.skier.numSkier, r.course.numCourse, r.numWeek, r.numRegistration from Registration r " +
+            "where r.skier.numSkier in :skiers and r.course.numCourse in :courses")
+    List<Object[]> findSkierCourseWeeks(@Param("skiers") Collection<Long> numSkiers, @Param("courses") Collection<Long> numCourses);
+
+    /* numRegistration, numCourse, numWeek ; registrations without course are left out */
+    @Query("select r.numRegistration, r.course.numCourse, r.numWeek from Registration r where r.numRegistration in :ids")
+    List<Object[]> findCourseWeeksByIds(@Param("ids") Collection<Long> numRegistrations);
 
 
 
@@ -0,0 +1,9 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+import tn.esprit.spring.entities.RevenueAggregate;
+import tn.esprit.spring.entities.TypeSubscription;
+
+public interface IRevenueAggregateRepository extends CrudRepository<RevenueAggregate, TypeSubscription> {
+
+}
@@ -1,17 +1,60 @@
 package tn.esprit.spring.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.SkierDTO;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ISkierRepository extends JpaRepository<Skier, Long> {
+   /* Subscription and registrations come back in the same select ; Registration.course is not
+      serialized, so it is not fetched */
+   @Override
+   @EntityGraph(attributePaths = {"subscription", "registrations"})
+   List<Skier> findAll();
+
+   @EntityGraph(attributePaths = {"subscription", "registrations"})
    List<Skier> findBySubscription_TypeSub(TypeSubscription typeSubscription);
    Skier findBySubscription(Subscription subscription);
 
+   /* Keyset page : uses the primary key index, no OFFSET scan. Only the to-one subscription is
+      fetched, a collection fetch would make Hibernate apply the limit in memory ; registrations
+      are batch loaded */
+   @EntityGraph(attributePaths = {"subscription"})
+   List<Skier> findByNumSkierGreaterThanOrderByNumSkierAsc(Long numSkier, Limit limit);
+
+   @Query("select new tn.esprit.spring.dto.SkierDTO(s.numSkier, s.firstName, s.lastName, s.dateOfBirth, s.city, " +
+           "sub.numSub, sub.typeSub, sub.startDate, sub.endDate) " +
+           "from Skier s left join s.subscription sub order by s.numSkier")
+   List<SkierDTO> findAllSkierDTOs();
+
+   @Query("select new tn.esprit.spring.dto.SkierDTO(s.numSkier, s.firstName, s.lastName, s.dateOfBirth, s.city, " +
+           "sub.numSub, sub.typeSub, sub.startDate, sub.endDate) " +
+           "from Skier s join s.subscription sub where sub.typeSub = :typeS order by s.numSkier")
+   List<SkierDTO> findSkierDTOsBySubscriptionType(@Param("typeS") TypeSubscription typeSubscription);
+
+   /* Same graph as the keyset page : a fetched collection would repeat each skier per registration */
+   @EntityGraph(attributePaths = {"subscription"})
+   @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+   @Query("select s from Skier s order by s.numSkier")
+   Stream<Skier> streamAllByOrderByNumSkier();
+
+   /* numSkier, numSub, startDate, endDate of every skier holding a subscription */
+   @Query("select s.numSkier, sub.numSub, sub.startDate, sub.endDate from Skier s join s.subscription sub")
+   List<Object[]> findPassWindows();
+
+   @Query("select p.numPiste from Skier s join s.pistes p where s.numSkier = :numSkier")
+   List<Long> findPisteIdsBySkier(@Param("numSkier") Long numSkier);
 
 }
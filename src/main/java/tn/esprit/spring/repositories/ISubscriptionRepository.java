@@ -1,29 +1,75 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.ExpiredSubscriptionDTO;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ISubscriptionRepository extends CrudRepository<Subscription, Long> {
 
-    @Query("select s from Subscription s where s.typeSub = :typeS order by s.startDate")
-    Set<Subscription> findByTypeSubOrderByStartDateAsc(@Param("typeS") TypeSubscription typeSub);
+    @Query("select s from Subscription s where s.typeSub = :typeS order by s.startDate, s.numSub")
+    List<Subscription> findByTypeSubOrderByStartDateAsc(@Param("typeS") TypeSubscription typeSub);
+
+    /* Keyset page on the (typeSub, startDate) index, the primary key breaking ties */
+    @Query("select s from Subscription s where s.typeSub = :typeS " +
+            "and (s.startDate > :afterDate or (s.startDate = :afterDate and s.numSub > :afterId)) " +
+            "order by s.startDate, s.numSub")
+    List<Subscription> findByTypeSubAfter(@Param("typeS") TypeSubscription typeSub,
+                                          @Param("afterDate") LocalDate afterDate,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from Subscription s where s.typeSub = :typeS order by s.startDate, s.numSub")
+    Stream<Subscription> streamByTypeSub(@Param("typeS") TypeSubscription typeSub);
 
     List<Subscription> getSubscriptionsByStartDateBetween(LocalDate date1, LocalDate date2);
 
+    @Query("select s from Subscription s where s.startDate <= :to and s.endDate >= :from")
+    List<Subscription> findActiveBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<Subscription> findByNumSubGreaterThanOrderByNumSubAsc(Long numSub, Limit limit);
+
     @Query("select distinct s from Subscription s where s.endDate <= CURRENT_TIME order by s.endDate")
     List<Subscription> findDistinctOrderByEndDateAsc();
 
 
+    /* Keyset read on (endDate, numSub) past the job watermark, skier joined in the same select */
+    @Query("select new tn.esprit.spring.dto.ExpiredSubscriptionDTO(s.numSub, s.endDate, sk.firstName, sk.lastName) " +
+            "from Subscription s left join Skier sk on sk.subscription = s " +
+            "where s.endDate <= :today " +
+            "and (s.endDate > :afterDate or (s.endDate = :afterDate and s.numSub > :afterId)) " +
+            "order by s.endDate, s.numSub")
+    List<ExpiredSubscriptionDTO> findExpiredAfter(@Param("afterDate") LocalDate afterDate,
+                                                  @Param("afterId") Long afterId,
+                                                  @Param("today") LocalDate today,
+                                                  Pageable pageable);
+
+    @Query("select new tn.esprit.spring.dto.ExpiredSubscriptionDTO(s.numSub, s.endDate, sk.firstName, sk.lastName) " +
+            "from Subscription s left join Skier sk on sk.subscription = s where s.numSub = :numSub")
+    Optional<ExpiredSubscriptionDTO> findExpiredById(@Param("numSub") Long numSub);
+
     @Query("select (sum(s.price))/(count(s)) from Subscription s where s.typeSub = ?1")
     Float recurringRevenueByTypeSubEquals(TypeSubscription typeSub);
 
+    @Query("select distinct s.endDate from Subscription s where s.endDate > :today")
+    List<LocalDate> findUpcomingEndDates(@Param("today") LocalDate today);
+
+    @Query("select s.typeSub, sum(s.price), count(s) from Subscription s group by s.typeSub")
+    List<Object[]> sumAndCountByTypeSub();
+
 
 }
@@ -0,0 +1,26 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.entities.WaitlistEntry;
+import tn.esprit.spring.entities.WaitlistStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IWaitlistEntryRepository extends CrudRepository<WaitlistEntry, Long> {
+
+    Optional<WaitlistEntry> findFirstByNumCourseAndNumWeekAndStatusOrderByNumEntryAsc(Long numCourse, int numWeek, WaitlistStatus status);
+
+    Optional<WaitlistEntry> findFirstByNumSkierAndNumCourseAndNumWeekAndStatus(Long numSkier, Long numCourse, int numWeek, WaitlistStatus status);
+
+    @Query("select distinct w.numCourse, w.numWeek from WaitlistEntry w where w.status = :status")
+    List<Object[]> findCourseWeeksByStatus(@Param("status") WaitlistStatus status);
+
+    /* Returns 1 for the caller that moved the entry out of "from", 0 for any concurrent one */
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = :to where w.numEntry = :numEntry and w.status = :from")
+    int changeStatus(@Param("numEntry") Long numEntry, @Param("from") WaitlistStatus from, @Param("to") WaitlistStatus to);
+}
@@ -0,0 +1,20 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tn.esprit.spring.indexes.ReferenceCatalog;
+
+@Slf4j
+@AllArgsConstructor
+@Service
+public class CatalogServicesImpl implements ICatalogServices {
+
+    private ReferenceCatalog referenceCatalog;
+
+    @Override
+    public void reloadCatalog() {
+        log.info("Catalog reload requested");
+        referenceCatalog.requestReload();
+    }
+}
@@ -0,0 +1,86 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.repositories.ICourseWeekCapacityRepository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat admission on the per (course, week) counters. A seat is taken with one conditional
+ * update ("taken < capacity"), which the database serializes, so concurrent admissions on
+ * several nodes can never overbook a week.
+ */
+@RequiredArgsConstructor
+@Service
+public class CourseCapacityServicesImpl implements ICourseCapacityServices {
+
+    static final int DEFAULT_CAPACITY = 6;
+
+    private final ICourseWeekCapacityRepository capacityRepository;
+
+    /* Course weeks whose counter row is known to exist, so steady state admission is one update */
+    private final Set<CourseWeek> knownCounters = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean reserveSeat(Course course, int numWeek) {
+        ensureCounter(course, numWeek);
+        return capacityRepository.reserveSeat(course.getNumCourse(), numWeek) == 1;
+    }
+
+    /*
+     * As many of the wanted seats as are left, in one update when they all fit. Otherwise the
+     * free seats are read and that many are asked for, until it succeeds or none are left.
+     */
+    @Override
+    public int reserveSeats(Course course, int numWeek, int seats) {
+        ensureCounter(course, numWeek);
+        int wanted = seats;
+        while (wanted > 0) {
+            if (capacityRepository.reserveSeats(course.getNumCourse(), numWeek, wanted) == 1) {
+                return wanted;
+            }
+            Integer free = capacityRepository.findFreeSeats(course.getNumCourse(), numWeek);
+            if (free == null || free <= 0) {
+                return 0;
+            }
+            wanted = Math.min(wanted, free);
+        }
+        return 0;
+    }
+
+    @Override
+    public void releaseSeat(Course course, int numWeek) {
+        capacityRepository.releaseSeat(course.getNumCourse(), numWeek);
+    }
+
+    @Override
+    public void updateCapacity(Course course) {
+        capacityRepository.updateCapacity(course.getNumCourse(), capacityOf(course));
+    }
+
+    @Override
+    public int capacityOf(Course course) {
+        return course.getCapacity() == null ? DEFAULT_CAPACITY : course.getCapacity();
+    }
+
+    /*
+     * The counter is created before the conditional update, in the caller's transaction, by one
+     * insert seeded with the registrations already made and left alone when it exists. It is
+     * only known once committed, since a rollback takes the row away again.
+     */
+    @Override
+    public void ensureCounter(Course course, int numWeek) {
+        CourseWeek key = new CourseWeek(course.getNumCourse(), numWeek);
+        if (knownCounters.contains(key)) {
+            return;
+        }
+        capacityRepository.createCounter(course.getNumCourse(), numWeek, capacityOf(course));
+        AfterCommit.run(() -> knownCounters.add(key));
+    }
+
+    private record CourseWeek(Long numCourse, int numWeek) {
+    }
+}
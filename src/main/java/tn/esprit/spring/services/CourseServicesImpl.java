@@ -1,36 +1,70 @@
 package tn.esprit.spring.services;
 
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
+import tn.esprit.spring.indexes.ReferenceCatalog;
 import tn.esprit.spring.repositories.ICourseRepository;
 
 import java.util.List;
+import java.util.function.Consumer;
 @AllArgsConstructor
 @Service
 public class CourseServicesImpl implements  ICourseServices{
 
     private ICourseRepository courseRepository;
 
+    private ICourseCapacityServices courseCapacityServices;
+
+    private InstructorWeekIndex instructorWeekIndex;
+
+    private EntityManager entityManager;
+
+    private ReferenceCatalog referenceCatalog;
+
     @Override
     public List<Course> retrieveAllCourses() {
-        return courseRepository.findAll();
+        List<Course> courses = referenceCatalog.courses();
+        return courses != null ? courses : courseRepository.findAll();
     }
 
     @Override
     public Course addCourse(Course course) {
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        instructorWeekIndex.courseSaved(saved);
+        AfterCommit.run(() -> referenceCatalog.courseSaved(saved));
+        return saved;
     }
 
     @Override
     public Course updateCourse(Course course) {
-        return courseRepository.save(course);
+        Course updated = courseRepository.save(course);
+        courseCapacityServices.updateCapacity(updated);
+        instructorWeekIndex.courseSaved(updated);
+        AfterCommit.run(() -> referenceCatalog.courseSaved(updated));
+        return updated;
     }
 
     @Override
     public Course retrieveCourse(Long numCourse) {
-        return courseRepository.findById(numCourse).orElse(null);
+        /* A course added on another node is not in the catalog until its next reload */
+        Course course = referenceCatalog.course(numCourse);
+        return course != null ? course : courseRepository.findById(numCourse).orElse(null);
+    }
+
+    @Override
+    public List<Course> retrieveCoursesAfter(Long numCourse, Integer limit) {
+        return courseRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(KeysetPaging.after(numCourse), KeysetPaging.limit(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCourses(Consumer<Course> consumer) {
+        KeysetPaging.stream(courseRepository.streamAllByOrderByNumCourse(), consumer, entityManager);
     }
 
 
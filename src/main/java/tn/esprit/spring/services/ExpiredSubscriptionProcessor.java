@@ -0,0 +1,106 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.dto.ExpiredSubscriptionDTO;
+import tn.esprit.spring.entities.JobWatermark;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.IJobWatermarkRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Hands the subscriptions expired since the persisted watermark to the expiry handlers,
+ * reading them chunk by chunk with their skier, then moves the watermark past them.
+ *
+ * The watermark moves on (endDate, numSub), so a subscription saved with an end date it has
+ * already passed is never read again : such back-dated rows are handed over as they are saved.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class ExpiredSubscriptionProcessor {
+
+    static final String EXPIRED_SUBSCRIPTIONS_JOB = "expired-subscriptions";
+    static final int EXPIRY_CHUNK_SIZE = 500;
+
+    private ISubscriptionRepository subscriptionRepository;
+
+    private IJobWatermarkRepository watermarkRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private List<SubscriptionExpiryHandler> handlers;
+
+    public synchronized int processExpired() {
+        Timer.Sample run = Timer.start(meterRegistry);
+        JobWatermark watermark = watermarkRepository.findById(EXPIRED_SUBSCRIPTIONS_JOB)
+                .orElseGet(() -> new JobWatermark(EXPIRED_SUBSCRIPTIONS_JOB, LocalDate.EPOCH, 0L));
+        LocalDate today = LocalDate.now();
+        int processed = 0;
+        List<ExpiredSubscriptionDTO> chunk;
+        do {
+            chunk = subscriptionRepository.findExpiredAfter(watermark.getLastDate(), watermark.getLastId(),
+                    today, PageRequest.of(0, EXPIRY_CHUNK_SIZE));
+            for (ExpiredSubscriptionDTO sub : chunk) {
+                dispatch(sub);
+            }
+            if (!chunk.isEmpty()) {
+                ExpiredSubscriptionDTO last = chunk.get(chunk.size() - 1);
+                watermark.setLastDate(last.getEndDate());
+                watermark.setLastId(last.getNumSub());
+                watermarkRepository.save(watermark);
+                processed += chunk.size();
+            }
+        } while (chunk.size() == EXPIRY_CHUNK_SIZE);
+        meterRegistry.counter("subscriptions.expired.processed").increment(processed);
+        run.stop(meterRegistry.timer("subscriptions.expired.run"));
+        return processed;
+    }
+
+    /* Runs after the commit, whichever service saved the subscription */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onSubscriptionSaved(SubscriptionSavedEvent event) {
+        Subscription subscription = event.getSubscription();
+        JobWatermark watermark = watermarkRepository.findById(EXPIRED_SUBSCRIPTIONS_JOB).orElse(null);
+        if (watermark == null || !passed(watermark, subscription)) {
+            return;
+        }
+        /* The former end date was already handed over, the subscription expired once */
+        if (event.getPrevious() != null && passed(watermark, event.getPrevious())) {
+            return;
+        }
+        subscriptionRepository.findExpiredById(subscription.getNumSub()).ifPresent(sub -> {
+            dispatch(sub);
+            meterRegistry.counter("subscriptions.expired.processed").increment();
+        });
+    }
+
+    private static boolean passed(JobWatermark watermark, Subscription subscription) {
+        LocalDate endDate = subscription.getEndDate();
+        if (endDate == null || subscription.getNumSub() == null) {
+            return false;
+        }
+        return endDate.isBefore(watermark.getLastDate())
+                || endDate.isEqual(watermark.getLastDate()) && subscription.getNumSub() <= watermark.getLastId();
+    }
+
+    private void dispatch(ExpiredSubscriptionDTO sub) {
+        for (SubscriptionExpiryHandler handler : handlers) {
+            try {
+                handler.onExpired(sub);
+            } catch (RuntimeException exception) {
+                log.warn("Expiry handler " + handler.getClass().getSimpleName() + " failed for subscription "
+                        + sub.getNumSub() + " : " + exception.getMessage());
+            }
+        }
+    }
+}
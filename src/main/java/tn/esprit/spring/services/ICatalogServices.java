@@ -0,0 +1,6 @@
+package tn.esprit.spring.services;
+
+public interface ICatalogServices {
+
+	void reloadCatalog();
+}
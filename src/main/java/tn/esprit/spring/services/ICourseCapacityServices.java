@@ -0,0 +1,19 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.entities.Course;
+
+public interface ICourseCapacityServices {
+
+    /* Creates the counter of a course week from its registrations : call it before inserting one */
+    void ensureCounter(Course course, int numWeek);
+
+    boolean reserveSeat(Course course, int numWeek);
+
+    int reserveSeats(Course course, int numWeek, int seats);
+
+    void releaseSeat(Course course, int numWeek);
+
+    void updateCapacity(Course course);
+
+    int capacityOf(Course course);
+}
@@ -4,6 +4,7 @@ import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ICourseServices {
 
@@ -15,5 +16,9 @@ public interface ICourseServices {
 
     Course retrieveCourse(Long numCourse);
 
+    List<Course> retrieveCoursesAfter(Long numCourse, Integer limit);
+
+    void streamAllCourses(Consumer<Course> consumer);
+
 
 }
@@ -1,10 +1,12 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.InstructorDTO;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Support;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IInstructorServices {
 
@@ -18,4 +20,10 @@ public interface IInstructorServices {
 
     Instructor addInstructorAndAssignToCourse(Instructor instructor, Long numCourse);
 
+    List<Instructor> retrieveInstructorsAfter(Long numInstructor, Integer limit);
+
+    void streamAllInstructors(Consumer<Instructor> consumer);
+
+    List<InstructorDTO> retrieveInstructorSummaries();
+
 }
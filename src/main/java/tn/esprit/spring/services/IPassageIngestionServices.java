@@ -0,0 +1,15 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.PassageEvent;
+import tn.esprit.spring.dto.PassageIngestionReport;
+import tn.esprit.spring.entities.PistePassageCount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface IPassageIngestionServices {
+
+	PassageIngestionReport submit(List<PassageEvent> events);
+
+	List<PistePassageCount> retrievePassageCounts(Long numPiste, LocalDateTime from, LocalDateTime to);
+}
@@ -1,8 +1,12 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.PistePopularityDTO;
+import tn.esprit.spring.dto.PisteSearchCriteria;
+import tn.esprit.spring.entities.Color;
 import tn.esprit.spring.entities.Piste;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IPisteServices {
 
@@ -13,4 +17,12 @@ public interface IPisteServices {
     void removePiste (Long numPiste);
 
     Piste retrievePiste (Long numPiste);
+
+    List<Piste> retrievePistesAfter(Long numPiste, Integer limit);
+
+    void streamAllPistes(Consumer<Piste> consumer);
+
+    List<PistePopularityDTO> retrieveTopPistes(int n, Color color);
+
+    List<Piste> searchPistes(PisteSearchCriteria criteria);
 }
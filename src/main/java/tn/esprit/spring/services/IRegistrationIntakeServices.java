@@ -0,0 +1,11 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.RegistrationTicket;
+import tn.esprit.spring.entities.Registration;
+
+public interface IRegistrationIntakeServices {
+
+    RegistrationTicket submit(Registration registration, Long numSkier, Long numCourse);
+
+    RegistrationTicket retrieveTicket(String ticketId);
+}
@@ -1,5 +1,9 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
+import tn.esprit.spring.dto.GroupRegistration;
+import tn.esprit.spring.dto.GroupRegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationResult;
 import tn.esprit.spring.entities.*;
 
 import java.util.List;
@@ -9,6 +13,12 @@ public interface IRegistrationServices {
 	Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier);
 	Registration assignRegistrationToCourse(Long numRegistration, Long numCourse);
 	Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours);
+	RegistrationResult registerSkierToCourse(Registration registration, Long numSkieur, Long numCours);
+	List<GroupRegistrationOutcome> registerGroup(List<GroupRegistration> rows);
+	void removeRegistration(Long numRegistration);
+	WaitlistEntry retrieveWaitlistEntry(Long numEntry);
+	WaitlistEntry promoteNextWaiting(Long numCourse, int numWeek);
 	List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support);
+	CourseAvailabilityDTO retrieveAvailabilityMatrix();
 }
 
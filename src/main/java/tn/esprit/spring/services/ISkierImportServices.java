@@ -0,0 +1,15 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.entities.Skier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface ISkierImportServices {
+
+	SkierImportReport importSkiers(List<Skier> skiers);
+
+	SkierImportReport importSkiersFromCsv(InputStream csv) throws IOException;
+}
@@ -1,9 +1,13 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierPisteAssignment;
+import tn.esprit.spring.dto.SkierPisteAssignmentReport;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ISkierServices {
 
@@ -22,6 +26,18 @@ public interface ISkierServices {
 
 	Skier assignSkierToPiste(Long numSkieur, Long numPiste);
 
+	SkierPisteAssignmentReport assignSkiersToPistes(List<SkierPisteAssignment> assignments);
+
 	List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription);
 
+	List<Skier> retrieveSkiersAfter(Long numSkier, Integer limit);
+
+	void streamAllSkiers(Consumer<Skier> consumer);
+
+	List<SkierDTO> retrieveSkierSummaries();
+
+	List<SkierDTO> retrieveSkierSummariesBySubscriptionType(TypeSubscription typeSubscription);
+
+	boolean hasValidPass(Long numSkier);
+
 }
@@ -2,7 +2,7 @@ package tn.esprit.spring.services;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Consumer;
 
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
@@ -15,9 +15,17 @@ public interface ISubscriptionServices {
 
 	Subscription retrieveSubscriptionById(Long numSubscription);
 
-	Set<Subscription> getSubscriptionByType(TypeSubscription type);
+	List<Subscription> getSubscriptionByType(TypeSubscription type);
+
+	List<Subscription> getSubscriptionByTypeAfter(TypeSubscription type, LocalDate afterDate, Long afterId, Integer limit);
+
+	void streamSubscriptionsByType(TypeSubscription type, Consumer<Subscription> consumer);
 
 	List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate);
 
+	List<Subscription> retrieveSubscriptionsActiveBetween(LocalDate startDate, LocalDate endDate);
+
 	void retrieveSubscriptions();
+
+	double retrieveMonthlyRecurringRevenue();
 }
@@ -1,15 +1,20 @@
 package tn.esprit.spring.services;
 
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.InstructorDTO;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IInstructorRepository;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @AllArgsConstructor
 @Service
@@ -17,10 +22,14 @@ public class InstructorServicesImpl implements IInstructorServices{
 
     private IInstructorRepository instructorRepository;
     private ICourseRepository courseRepository;
+    private EntityManager entityManager;
+    private InstructorWeekIndex instructorWeekIndex;
 
     @Override
     public Instructor addInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        Instructor saved = instructorRepository.save(instructor);
+        instructorWeekIndex.instructorSaved(saved);
+        return saved;
     }
 
     @Override
@@ -30,7 +39,9 @@ public class InstructorServicesImpl implements IInstructorServices{
 
     @Override
     public Instructor updateInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        Instructor saved = instructorRepository.save(instructor);
+        instructorWeekIndex.instructorSaved(saved);
+        return saved;
     }
 
     @Override
@@ -44,8 +55,27 @@ public class InstructorServicesImpl implements IInstructorServices{
         Set<Course> courseSet = new HashSet<>();
         courseSet.add(course);
         instructor.setCourses(courseSet);
-        return instructorRepository.save(instructor);
+        Instructor saved = instructorRepository.save(instructor);
+        instructorWeekIndex.instructorSaved(saved);
+        return saved;
     }
 
+    @Override
+    public List<Instructor> retrieveInstructorsAfter(Long numInstructor, Integer limit) {
+        return instructorRepository.findByNumInstructorGreaterThanOrderByNumInstructorAsc(KeysetPaging.after(numInstructor), KeysetPaging.limit(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllInstructors(Consumer<Instructor> consumer) {
+        KeysetPaging.stream(instructorRepository.streamAllByOrderByNumInstructor(), consumer, entityManager);
+    }
+
+    @Override
+    public List<InstructorDTO> retrieveInstructorSummaries() {
+        return instructorRepository.findAll().stream()
+                .map(InstructorDTO::from)
+                .toList();
+    }
 
 }
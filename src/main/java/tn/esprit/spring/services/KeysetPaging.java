@@ -0,0 +1,47 @@
+package tn.esprit.spring.services;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Shared bounds for the cursor based ("after=&limit=") listings.
+ * Pages are read with "where id > :after order by id", so every page
+ * is a range scan on the primary key whatever its position in the table.
+ */
+final class KeysetPaging {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    /* Rows kept in the persistence context before it is cleared while streaming */
+    static final int STREAM_CLEAR_INTERVAL = 500;
+
+    private KeysetPaging() {
+    }
+
+    /* Hands every row to the consumer, clearing the persistence context as it goes, and closes the cursor */
+    static <T> void stream(Stream<T> rows, Consumer<T> consumer, EntityManager entityManager) {
+        try (rows) {
+            int count = 0;
+            for (T row : (Iterable<T>) rows::iterator) {
+                consumer.accept(row);
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    static Long after(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    static Limit limit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return Limit.of(DEFAULT_LIMIT);
+        }
+        return Limit.of(Math.min(limit, MAX_LIMIT));
+    }
+}
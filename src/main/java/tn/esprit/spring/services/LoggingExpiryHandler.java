@@ -0,0 +1,16 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.ExpiredSubscriptionDTO;
+
+@Slf4j
+@Component
+public class LoggingExpiryHandler implements SubscriptionExpiryHandler {
+
+    @Override
+    public void onExpired(ExpiredSubscriptionDTO sub) {
+        log.info(sub.getNumSub().toString() + " | "+ sub.getEndDate().toString()
+                + " | "+ sub.getFirstName() + " " + sub.getLastName());
+    }
+}
@@ -0,0 +1,196 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.PassageEvent;
+import tn.esprit.spring.dto.PassageIngestionReport;
+import tn.esprit.spring.entities.PistePassageCount;
+import tn.esprit.spring.repositories.IPistePassageCountRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lift reader passages go through a bounded queue to a single worker thread, which folds them
+ * into per-piste, per-minute counters and upserts those in JDBC batches. A burst of readers
+ * only costs a queue offer per event ; once the queue is full the extra events are refused and
+ * reported, instead of piling up in memory.
+ *
+ * Counters are flushed every flush-ms, or earlier when too many minutes are pending. A flush is a
+ * single transaction, so a failed one leaves nothing behind and keeps its counters for the next
+ * one ; the next attempt waits a backoff that doubles on each failure, up to MAX_BACKOFF. Pending
+ * counters are flushed on shutdown.
+ */
+@Slf4j
+@Service
+public class PassageIngestionServicesImpl implements IPassageIngestionServices {
+
+    static final String UPSERT = "insert into piste_passage_count (num_piste, minute_start, passages) values (?, ?, ?) "
+            + "on duplicate key update passages = passages + values(passages)";
+    private static final int DRAIN_SIZE = 10_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_PENDING_MINUTES = 50_000;
+    static final long MIN_BACKOFF = TimeUnit.SECONDS.toNanos(1);
+    static final long MAX_BACKOFF = TimeUnit.MINUTES.toNanos(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final IPistePassageCountRepository passageCountRepository;
+    private final BlockingQueue<PassageEvent> queue;
+    private final long flushNanos;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter invalid;
+    private final Counter flushedRows;
+    private final Timer flushes;
+
+    /* Worker side, only touched by the worker thread (or by the caller once it is stopped) */
+    private final Map<MinuteKey, long[]> pending = new HashMap<>();
+    private final List<PassageEvent> drained = new ArrayList<>(DRAIN_SIZE);
+    private long lastFlush = System.nanoTime();
+    private long backoff;
+    private long retryAt;
+    private Thread worker;
+    private volatile boolean running;
+
+    public PassageIngestionServicesImpl(JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        IPistePassageCountRepository passageCountRepository,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${passages.queue-capacity:100000}") int queueCapacity,
+                                        @Value("${passages.flush-ms:1000}") long flushMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.passageCountRepository = passageCountRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.accepted = Counter.builder("passages.events").tag("result", "accepted").register(meterRegistry);
+        this.rejected = Counter.builder("passages.events").tag("result", "rejected").register(meterRegistry);
+        this.invalid = Counter.builder("passages.events").tag("result", "invalid").register(meterRegistry);
+        this.flushedRows = Counter.builder("passages.flushed.rows").register(meterRegistry);
+        this.flushes = Timer.builder("passages.flush").register(meterRegistry);
+        Gauge.builder("passages.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "piste-passages");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        drainAndFlush(true);
+    }
+
+    @Override
+    public PassageIngestionReport submit(List<PassageEvent> events) {
+        int accepted = 0;
+        int invalid = 0;
+        int rejected = 0;
+        for (PassageEvent event : events) {
+            if (event == null || event.getNumPiste() == null || event.getTimestamp() == null) {
+                invalid++;
+            } else if (queue.offer(event)) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        this.accepted.increment(accepted);
+        this.invalid.increment(invalid);
+        this.rejected.increment(rejected);
+        if (rejected > 0) {
+            log.warn("Passage queue full, " + rejected + " events refused");
+        }
+        return new PassageIngestionReport(events.size(), accepted, invalid, rejected);
+    }
+
+    @Override
+    public List<PistePassageCount> retrievePassageCounts(Long numPiste, LocalDateTime from, LocalDateTime to) {
+        return passageCountRepository.findByNumPisteAndMinuteStartBetweenOrderByMinuteStart(numPiste, from, to);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                PassageEvent first = queue.poll(flushNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    drained.add(first);
+                }
+                drainAndFlush(false);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException exception) {
+                log.error("Passage ingestion failed : " + exception.getMessage(), exception);
+            }
+        }
+    }
+
+    /* Folds the queued events into the counters, and upserts them when due (or forced) */
+    void drainAndFlush(boolean force) {
+        queue.drainTo(drained, DRAIN_SIZE - drained.size());
+        for (PassageEvent event : drained) {
+            MinuteKey key = new MinuteKey(event.getNumPiste(), event.getTimestamp().truncatedTo(ChronoUnit.MINUTES));
+            pending.computeIfAbsent(key, minute -> new long[1])[0]++;
+        }
+        drained.clear();
+        if (pending.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (force || (now - retryAt >= 0 && (pending.size() >= MAX_PENDING_MINUTES || now - lastFlush >= flushNanos))) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<Map.Entry<MinuteKey, long[]>> rows = new ArrayList<>(pending.entrySet());
+        try {
+            flushes.record(() -> transaction.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT, rows, BATCH_SIZE, (statement, row) -> {
+                        statement.setLong(1, row.getKey().numPiste());
+                        statement.setTimestamp(2, Timestamp.valueOf(row.getKey().minute()));
+                        statement.setLong(3, row.getValue()[0]);
+                    })));
+            pending.clear();
+            flushedRows.increment(rows.size());
+            backoff = 0;
+        } catch (DataAccessException exception) {
+            backoff = backoff == 0 ? MIN_BACKOFF : Math.min(backoff * 2, MAX_BACKOFF);
+            log.warn("Flushing " + rows.size() + " passage counters failed, retrying in "
+                    + TimeUnit.NANOSECONDS.toMillis(backoff) + " ms : " + exception.getMessage());
+        }
+        lastFlush = System.nanoTime();
+        retryAt = lastFlush + backoff;
+    }
+
+    private record MinuteKey(long numPiste, LocalDateTime minute) {
+    }
+}
@@ -1,34 +1,101 @@
 package tn.esprit.spring.services;
 
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.PistePopularityDTO;
+import tn.esprit.spring.dto.PisteSearchCriteria;
+import tn.esprit.spring.entities.Color;
 import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.indexes.PistePopularityIndex;
+import tn.esprit.spring.indexes.PisteSearchIndex;
+import tn.esprit.spring.indexes.ReferenceCatalog;
 import tn.esprit.spring.repositories.IPisteRepository;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.function.Consumer;
 @AllArgsConstructor
 @Service
 public class PisteServicesImpl implements  IPisteServices{
 
     private IPisteRepository pisteRepository;
 
+    private EntityManager entityManager;
+
+    private PistePopularityIndex pistePopularityIndex;
+
+    private PisteSearchIndex pisteSearchIndex;
+
+    private ReferenceCatalog referenceCatalog;
+
     @Override
     public List<Piste> retrieveAllPistes() {
-        return pisteRepository.findAll();
+        List<Piste> pistes = referenceCatalog.pistes();
+        return pistes != null ? pistes : pisteRepository.findAll();
     }
 
     @Override
     public Piste addPiste(Piste piste) {
-        return pisteRepository.save(piste);
+        Piste saved = pisteRepository.save(piste);
+        AfterCommit.run(() -> {
+            pistePopularityIndex.pisteSaved(saved);
+            pisteSearchIndex.pisteSaved(saved);
+            referenceCatalog.pisteSaved(saved);
+        });
+        return saved;
     }
 
     @Override
     public void removePiste(Long numPiste) {
         pisteRepository.deleteById(numPiste);
+        AfterCommit.run(() -> {
+            pistePopularityIndex.pisteRemoved(numPiste);
+            pisteSearchIndex.pisteRemoved(numPiste);
+            referenceCatalog.pisteRemoved(numPiste);
+        });
     }
 
     @Override
     public Piste retrievePiste(Long numPiste) {
-        return pisteRepository.findById(numPiste).orElse(null);
+        /* A piste added on another node is not in the catalog until its next reload */
+        Piste piste = referenceCatalog.piste(numPiste);
+        return piste != null ? piste : pisteRepository.findById(numPiste).orElse(null);
+    }
+
+    @Override
+    public List<Piste> retrievePistesAfter(Long numPiste, Integer limit) {
+        return pisteRepository.findByNumPisteGreaterThanOrderByNumPisteAsc(KeysetPaging.after(numPiste), KeysetPaging.limit(limit));
+    }
+
+    @Override
+    public List<PistePopularityDTO> retrieveTopPistes(int n, Color color) {
+        List<PistePopularityDTO> top = pistePopularityIndex.top(n, color);
+        if (top != null) {
+            return top;
+        }
+        return pisteRepository.findTopPistes(color, PageRequest.of(0, n));
+    }
+
+    @Override
+    public List<Piste> searchPistes(PisteSearchCriteria criteria) {
+        List<Piste> pistes = pisteSearchIndex.search(criteria);
+        if (pistes != null) {
+            return pistes;
+        }
+        if (criteria.isAny()) {
+            return pisteRepository.findAll().stream().filter(criteria::matches).toList();
+        }
+        return pisteRepository.searchPistes(!criteria.hasColors(),
+                criteria.hasColors() ? criteria.getColors() : EnumSet.allOf(Color.class),
+                criteria.getMinLength(), criteria.getMaxLength(), criteria.getMinSlope(), criteria.getMaxSlope());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllPistes(Consumer<Piste> consumer) {
+        KeysetPaging.stream(pisteRepository.streamAllByOrderByNumPiste(), consumer, entityManager);
     }
 }
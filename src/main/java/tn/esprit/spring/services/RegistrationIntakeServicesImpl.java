@@ -0,0 +1,203 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationTicket;
+import tn.esprit.spring.dto.TicketStatus;
+import tn.esprit.spring.entities.Registration;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous registration intake : a request is checked, put on a bounded queue and answered
+ * with a ticket right away, so no request thread waits on the database. A few workers drain the
+ * queue in batches, which bounds how many requests hit the database at once, and run each
+ * request in its own short transaction : the seat counter row a request locks is released at
+ * its commit instead of being held while the rest of the batch runs, and one bad request only
+ * fails its own ticket.
+ *
+ * Tickets and the queue live in memory only. Finished tickets are dropped after ticket-ttl. A
+ * graceful shutdown drains the queue first, but a crash or a kill loses the requests still
+ * queued although they were acknowledged with 202 : their tickets are unknown after the
+ * restart (404), and the client must check its registrations and submit again.
+ */
+@Slf4j
+@Service
+public class RegistrationIntakeServicesImpl implements IRegistrationIntakeServices {
+
+    private final IRegistrationServices registrationServices;
+    private final TransactionTemplate transaction;
+    private final BlockingQueue<Request> queue;
+    private final Map<String, RegistrationTicket> tickets = new ConcurrentHashMap<>();
+    private final int workerCount;
+    private final int batchSize;
+    private final Duration ticketTtl;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter invalid;
+    private final Timer latency;
+    private final Timer batches;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public RegistrationIntakeServicesImpl(IRegistrationServices registrationServices,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${registrations.intake.queue-capacity:10000}") int queueCapacity,
+                                          @Value("${registrations.intake.workers:4}") int workerCount,
+                                          @Value("${registrations.intake.batch-size:50}") int batchSize,
+                                          @Value("${registrations.intake.ticket-ttl:PT15M}") Duration ticketTtl) {
+        this.registrationServices = registrationServices;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.ticketTtl = ticketTtl;
+        this.accepted = Counter.builder("registrations.intake.requests").tag("result", "accepted").register(meterRegistry);
+        this.rejected = Counter.builder("registrations.intake.requests").tag("result", "rejected").register(meterRegistry);
+        this.invalid = Counter.builder("registrations.intake.requests").tag("result", "invalid").register(meterRegistry);
+        this.latency = Timer.builder("registrations.intake.latency").register(meterRegistry);
+        this.batches = Timer.builder("registrations.intake.batch").register(meterRegistry);
+        Gauge.builder("registrations.intake.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::run, "registration-intake-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        /* Requests already acknowledged are still served before shutting down */
+        while (!queue.isEmpty()) {
+            drain();
+        }
+    }
+
+    @Override
+    public RegistrationTicket submit(Registration registration, Long numSkier, Long numCourse) {
+        String ticketId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (registration == null || numSkier == null || numCourse == null || registration.getNumWeek() < 0) {
+            invalid.increment();
+            return new RegistrationTicket(ticketId, TicketStatus.INVALID, numSkier, numCourse,
+                    registration == null ? 0 : registration.getNumWeek(), now, now, null);
+        }
+        RegistrationTicket ticket = new RegistrationTicket(ticketId, TicketStatus.QUEUED, numSkier, numCourse,
+                registration.getNumWeek(), now, null, null);
+        tickets.put(ticketId, ticket);
+        if (!queue.offer(new Request(ticket, registration, System.nanoTime()))) {
+            tickets.remove(ticketId);
+            rejected.increment();
+            log.warn("Registration intake queue full, request of skier " + numSkier + " refused");
+            return new RegistrationTicket(ticketId, TicketStatus.REJECTED, numSkier, numCourse,
+                    registration.getNumWeek(), now, now, null);
+        }
+        accepted.increment();
+        return ticket;
+    }
+
+    @Override
+    public RegistrationTicket retrieveTicket(String ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    @Scheduled(fixedDelayString = "${registrations.intake.purge-ms:60000}")
+    public void purgeTickets() {
+        LocalDateTime limit = LocalDateTime.now().minus(ticketTtl);
+        tickets.values().removeIf(ticket -> ticket.getCompletedAt() != null && ticket.getCompletedAt().isBefore(limit));
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Request first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    List<Request> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException exception) {
+                log.error("Registration intake failed : " + exception.getMessage(), exception);
+            }
+        }
+    }
+
+    /* Processes one batch on the calling thread, returns its size (0 when the queue is empty) */
+    int drain() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (!batch.isEmpty()) {
+            process(batch);
+        }
+        return batch.size();
+    }
+
+    private void process(List<Request> batch) {
+        batches.record(() -> {
+            for (Request request : batch) {
+                try {
+                    complete(request, TicketStatus.DONE, transaction.execute(status -> register(request)));
+                } catch (RuntimeException exception) {
+                    log.warn("Registration of skier " + request.ticket().getNumSkier() + " failed : " + exception.getMessage());
+                    complete(request, TicketStatus.FAILED, null);
+                }
+            }
+        });
+    }
+
+    private RegistrationResult register(Request request) {
+        RegistrationTicket ticket = request.ticket();
+        return registrationServices.registerSkierToCourse(request.registration(), ticket.getNumSkier(), ticket.getNumCourse());
+    }
+
+    /* Tickets are replaced, never modified, so readers always see a complete one */
+    private void complete(Request request, TicketStatus status, RegistrationResult result) {
+        RegistrationTicket ticket = request.ticket();
+        tickets.put(ticket.getTicketId(), new RegistrationTicket(ticket.getTicketId(), status, ticket.getNumSkier(),
+                ticket.getNumCourse(), ticket.getNumWeek(), ticket.getAcceptedAt(), LocalDateTime.now(), result));
+        latency.record(System.nanoTime() - request.enqueuedAt(), TimeUnit.NANOSECONDS);
+    }
+
+    private record Request(RegistrationTicket ticket, Registration registration, long enqueuedAt) {
+    }
+}
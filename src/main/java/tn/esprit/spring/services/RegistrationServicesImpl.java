@@ -3,53 +3,135 @@ package tn.esprit.spring.services;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import tn.esprit.spring.caches.SkierCache;
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
+import tn.esprit.spring.dto.GroupRegistration;
+import tn.esprit.spring.dto.GroupRegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationStatus;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.events.SeatReleasedEvent;
+import tn.esprit.spring.indexes.CourseWeekOccupancy;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
+import tn.esprit.spring.indexes.ReferenceCatalog;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.IWaitlistEntryRepository;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 @Slf4j
 @AllArgsConstructor
 @Service
 public class RegistrationServicesImpl implements  IRegistrationServices{
 
+    /*
+     * Rows the unique key (skier, course, week) refuses are skipped and report 0. MySQL only :
+     * ignore also downgrades foreign key, NOT NULL and truncation errors to warnings, so the
+     * skier and course are always loaded before inserting.
+     */
+    static final String INSERT_REGISTRATION = "insert ignore into registration (num_week, skier_num_skier, course_num_course) values (?, ?, ?)";
+    /*
+     * Same insert without a VALUES clause : rewriteBatchedStatements cannot fold it into one
+     * multi-row insert, so every row of a batch keeps its own 0 / 1 update count.
+     */
+    static final String INSERT_REGISTRATION_ROW = "insert ignore into registration (num_week, skier_num_skier, course_num_course) select ?, ?, ?";
+    static final String DELETE_REGISTRATION = "delete from registration where num_registration = ?";
+    private static final int REGISTRATION_BATCH_SIZE = 500;
+
     private IRegistrationRepository registrationRepository;
     private ISkierRepository skierRepository;
     private ICourseRepository courseRepository;
+    private ICourseCapacityServices courseCapacityServices;
+    private InstructorWeekIndex instructorWeekIndex;
+    private SkierCache skierCache;
+    private CourseWeekOccupancy courseWeekOccupancy;
+    private ReferenceCatalog referenceCatalog;
+    private IWaitlistEntryRepository waitlistRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private JdbcTemplate jdbcTemplate;
 
 
     @Override
     public Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier) {
         Skier skier = skierRepository.findById(numSkier).orElse(null);
         registration.setSkier(skier);
-        return registrationRepository.save(registration);
+        Registration saved = registrationRepository.save(registration);
+        AfterCommit.run(() -> skierCache.invalidate(numSkier));
+        return saved;
     }
 
+    /*
+     * A collective course takes a seat of the week and the course left gives its seat back, so
+     * the counters keep matching the registrations. Returns null, the registration staying in
+     * its course, when the week is full.
+     */
+    @Transactional
     @Override
     public Registration assignRegistrationToCourse(Long numRegistration, Long numCourse) {
         Registration registration = registrationRepository.findById(numRegistration).orElse(null);
         Course course = courseRepository.findById(numCourse).orElse(null);
+        Course previous = registration.getCourse();
+        Long previousCourse = previous == null ? null : previous.getNumCourse();
+        boolean moved = course != null && !course.getNumCourse().equals(previousCourse);
+        if (moved && course.getTypeCourse() != TypeCourse.INDIVIDUAL
+                && !courseCapacityServices.reserveSeat(course, registration.getNumWeek())) {
+            log.info("Full Course ! Registration " + numRegistration + " stays in its course");
+            return null;
+        }
+        if (moved && previous != null && previous.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+            courseCapacityServices.releaseSeat(previous, registration.getNumWeek());
+            eventPublisher.publishEvent(new SeatReleasedEvent(previousCourse, registration.getNumWeek()));
+        }
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        Registration saved = registrationRepository.save(registration);
+        if (moved) {
+            AfterCommit.run(() -> {
+                instructorWeekIndex.registrationMoved(previousCourse, course.getNumCourse(), saved.getNumWeek());
+                courseWeekOccupancy.registrationMoved(saved.getNumRegistration(), previousCourse, course.getNumCourse(), saved.getNumWeek());
+            });
+        }
+        return saved;
     }
 
     @Transactional
     @Override
     public Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours) {
+        RegistrationResult result = registerSkierToCourse(registration, numSkieur, numCours);
+        switch (result.getStatus()) {
+            case REGISTERED:
+                return result.getRegistration();
+            case AGE_NOT_ALLOWED:
+                return registration;
+            default:
+                return null;
+        }
+    }
+
+    @Transactional
+    @Override
+    public RegistrationResult registerSkierToCourse(Registration registration, Long numSkieur, Long numCours) {
         Skier skier = skierRepository.findById(numSkieur).orElse(null);
         Course course = courseRepository.findById(numCours).orElse(null);
 
         if (skier == null || course == null) {
-            return null;
-        }
-
-        if(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(registration.getNumWeek(), skier.getNumSkier(), course.getNumCourse()) >=1){
-            log.info("Sorry, you're already register to this course of the week :" + registration.getNumWeek());
-            return null;
+            return RegistrationResult.of(RegistrationStatus.NOT_FOUND);
         }
 
         int ageSkieur = Period.between(skier.getDateOfBirth(), LocalDate.now()).getYears();
@@ -58,49 +140,339 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
         switch (course.getTypeCourse()) {
             case INDIVIDUAL:
                 log.info("add without tests");
-                return assignRegistration(registration, skier, course);
+                Long numRegistration = insertRegistration(registration.getNumWeek(), skier, course);
+                if (numRegistration == null) {
+                    return duplicate(registration);
+                }
+                return registered(assignRegistration(registration, numRegistration, skier, course));
 
             case COLLECTIVE_CHILDREN:
                 if (ageSkieur < 16) {
                     log.info("Ok CHILD !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
-                }
-                else{
-                    log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Adult Course...");
+                    return reserveOrWait(registration, skier, course);
                 }
+                log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Adult Course...");
                 break;
 
             default:
                 if (ageSkieur >= 16) {
                     log.info("Ok ADULT !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
+                    return reserveOrWait(registration, skier, course);
                 }
                 log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Child Course...");
         }
-        return registration;
+        return RegistrationResult.of(RegistrationStatus.AGE_NOT_ALLOWED);
 
     }
-    private Registration assignRegistration (Registration registration, Skier skier, Course course){
+
+    /*
+     * The row is inserted before the seat is taken, so a skier already registered gets DUPLICATE
+     * even when the week is full. Without a seat the row is deleted again and the skier waits.
+     * The counter is created first, so its seed does not count this row.
+     */
+    private RegistrationResult reserveOrWait(Registration registration, Skier skier, Course course) {
+        courseCapacityServices.ensureCounter(course, registration.getNumWeek());
+        Long numRegistration = insertRegistration(registration.getNumWeek(), skier, course);
+        if (numRegistration == null) {
+            return duplicate(registration);
+        }
+        if (courseCapacityServices.reserveSeat(course, registration.getNumWeek())) {
+            log.info("Course successfully added !");
+            return registered(assignRegistration(registration, numRegistration, skier, course));
+        }
+        jdbcTemplate.update(DELETE_REGISTRATION, numRegistration);
+        log.info("Full Course ! The skier is put on the waiting list of week " + registration.getNumWeek());
+        /* A retried request finds its entry instead of queueing twice */
+        WaitlistEntry entry = waitlistRepository.findFirstByNumSkierAndNumCourseAndNumWeekAndStatus(
+                        skier.getNumSkier(), course.getNumCourse(), registration.getNumWeek(), WaitlistStatus.WAITING)
+                .orElseGet(() -> waitlistRepository.save(new WaitlistEntry(null, skier.getNumSkier(), course.getNumCourse(),
+                        registration.getNumWeek(), WaitlistStatus.WAITING, LocalDateTime.now(), null, null)));
+        return new RegistrationResult(RegistrationStatus.WAITLISTED, null, entry);
+    }
+
+    private static RegistrationResult registered(Registration registration) {
+        return new RegistrationResult(RegistrationStatus.REGISTERED, registration, null);
+    }
+
+    private static RegistrationResult duplicate(Registration registration) {
+        log.info("Sorry, you're already register to this course of the week :" + registration.getNumWeek());
+        return RegistrationResult.of(RegistrationStatus.DUPLICATE);
+    }
+
+    /*
+     * Duplicates are refused by the unique key (skier, course, week) instead of being counted
+     * first, which also holds when two requests for the same skier race. Returns the new id,
+     * or null when the skier already holds this course week.
+     */
+    private Long insertRegistration(int numWeek, Skier skier, Course course) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_REGISTRATION, Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, numWeek);
+            statement.setLong(2, skier.getNumSkier());
+            statement.setLong(3, course.getNumCourse());
+            return statement;
+        }, keyHolder);
+        return inserted == 0 ? null : keyHolder.getKey().longValue();
+    }
+
+    private Registration assignRegistration (Registration registration, Long numRegistration, Skier skier, Course course){
+        registration.setNumRegistration(numRegistration);
         registration.setSkier(skier);
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        AfterCommit.run(() -> {
+            instructorWeekIndex.registrationAdded(course.getNumCourse(), registration.getNumWeek());
+            courseWeekOccupancy.registrationAdded(numRegistration, course.getNumCourse(), registration.getNumWeek());
+            skierCache.invalidate(skier.getNumSkier());
+        });
+        return registration;
     }
 
     @Override
     public List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support) {
-        return registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support);
+        List<Integer> weeks = instructorWeekIndex.weeks(numInstructor, support);
+        if (weeks != null) {
+            return weeks;
+        }
+        return registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support)
+                .stream().distinct().sorted().toList();
+    }
+
+    @Override
+    public CourseAvailabilityDTO retrieveAvailabilityMatrix() {
+        CourseWeekOccupancy.Matrix matrix = courseWeekOccupancy.matrix();
+        if (matrix == null) {
+            matrix = CourseWeekOccupancy.Matrix.of(registrationRepository.countByCourseAndWeek());
+        }
+        Map<Long, int[]> takenByCourse = new HashMap<>();
+        for (int row = 0; row < matrix.courses().length; row++) {
+            takenByCourse.put(matrix.courses()[row], matrix.taken()[row]);
+        }
+
+        List<Course> courses = referenceCatalog.courses();
+        if (courses == null) {
+            courses = courseRepository.findAll();
+        }
+        List<Long> numCourses = new ArrayList<>(courses.size());
+        int[] capacities = new int[courses.size()];
+        int[][] taken = new int[courses.size()][];
+        int[][] remaining = new int[courses.size()][matrix.weeks()];
+        for (int row = 0; row < courses.size(); row++) {
+            Course course = courses.get(row);
+            numCourses.add(course.getNumCourse());
+            capacities[row] = courseCapacityServices.capacityOf(course);
+            taken[row] = takenByCourse.getOrDefault(course.getNumCourse(), new int[matrix.weeks()]);
+            for (int week = 0; week < matrix.weeks(); week++) {
+                remaining[row][week] = Math.max(0, capacities[row] - taken[row][week]);
+            }
+        }
+        return new CourseAvailabilityDTO(numCourses, capacities, taken, remaining);
+    }
+
+    @Override
+    public WaitlistEntry retrieveWaitlistEntry(Long numEntry) {
+        return waitlistRepository.findById(numEntry).orElse(null);
+    }
+
+    @Transactional
+    @Override
+    public void removeRegistration(Long numRegistration) {
+        Registration registration = registrationRepository.findById(numRegistration).orElse(null);
+        if (registration == null) {
+            return;
+        }
+        Course course = registration.getCourse();
+        Skier skier = registration.getSkier();
+        registrationRepository.delete(registration);
+        if (course != null && course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+            courseCapacityServices.releaseSeat(course, registration.getNumWeek());
+            eventPublisher.publishEvent(new SeatReleasedEvent(course.getNumCourse(), registration.getNumWeek()));
+        }
+        AfterCommit.run(() -> {
+            if (course != null) {
+                instructorWeekIndex.registrationMoved(course.getNumCourse(), null, registration.getNumWeek());
+                courseWeekOccupancy.registrationMoved(numRegistration, course.getNumCourse(), null, registration.getNumWeek());
+            }
+            if (skier != null) {
+                skierCache.invalidate(skier.getNumSkier());
+            }
+        });
+    }
+
+    /*
+     * One waiting skier of the course week takes the seat. The seat is reserved first, then the
+     * entry is claimed with a conditional update, so two nodes promoting the same week cannot
+     * register the same entry twice. A skier registered meanwhile is refused by the unique key
+     * and the entry REJECTED. Returns null when nothing more can be promoted.
+     */
+    @Transactional
+    @Override
+    public WaitlistEntry promoteNextWaiting(Long numCourse, int numWeek) {
+        WaitlistEntry entry = waitlistRepository
+                .findFirstByNumCourseAndNumWeekAndStatusOrderByNumEntryAsc(numCourse, numWeek, WaitlistStatus.WAITING)
+                .orElse(null);
+        if (entry == null) {
+            return null;
+        }
+        Course course = courseRepository.findById(numCourse).orElse(null);
+        Skier skier = skierRepository.findById(entry.getNumSkier()).orElse(null);
+        if (course == null || skier == null) {
+            return resolve(entry, WaitlistStatus.REJECTED, null);
+        }
+        if (!courseCapacityServices.reserveSeat(course, numWeek)) {
+            return null;
+        }
+        if (waitlistRepository.changeStatus(entry.getNumEntry(), WaitlistStatus.WAITING, WaitlistStatus.REGISTERED) == 0) {
+            courseCapacityServices.releaseSeat(course, numWeek);
+            return entry;
+        }
+        Long numRegistration = insertRegistration(numWeek, skier, course);
+        if (numRegistration == null) {
+            courseCapacityServices.releaseSeat(course, numWeek);
+            return resolve(entry, WaitlistStatus.REJECTED, null);
+        }
+        Registration saved = assignRegistration(new Registration(null, numWeek, null, null), numRegistration, skier, course);
+        log.info("Waitlist entry " + entry.getNumEntry() + " registered as " + saved.getNumRegistration());
+        return resolve(entry, WaitlistStatus.REGISTERED, saved.getNumRegistration());
+    }
+
+    private WaitlistEntry resolve(WaitlistEntry entry, WaitlistStatus status, Long numRegistration) {
+        entry.setStatus(status);
+        entry.setNumRegistration(numRegistration);
+        entry.setResolvedAt(LocalDateTime.now());
+        return waitlistRepository.save(entry);
+    }
+
+    /*
+     * Whole classes at once : skiers and courses are loaded with one query each, the age and
+     * duplicate checks run in memory against the registrations already held by these skiers,
+     * the seats of each course week are reserved with one update, and the rows are inserted
+     * in JDBC batches. Rows of a course week beyond its remaining seats are FULL, in order ; rows
+     * registered concurrently by another request are refused by the unique key, reported
+     * DUPLICATE and their seat given back.
+     */
+    @Transactional
+    @Override
+    public List<GroupRegistrationOutcome> registerGroup(List<GroupRegistration> rows) {
+        Set<Long> numSkiers = new HashSet<>();
+        Set<Long> numCourses = new HashSet<>();
+        for (GroupRegistration row : rows) {
+            if (row != null && row.getNumSkier() != null && row.getNumCourse() != null) {
+                numSkiers.add(row.getNumSkier());
+                numCourses.add(row.getNumCourse());
+            }
+        }
+        Map<Long, Skier> skiers = new HashMap<>();
+        skierRepository.findAllById(numSkiers).forEach(skier -> skiers.put(skier.getNumSkier(), skier));
+        Map<Long, Course> courses = new HashMap<>();
+        courseRepository.findAllById(numCourses).forEach(course -> courses.put(course.getNumCourse(), course));
+        Set<SkierCourseWeek> booked = new HashSet<>();
+        if (!skiers.isEmpty() && !courses.isEmpty()) {
+            for (Object[] registration : registrationRepository.findSkierCourseWeeks(skiers.keySet(), courses.keySet())) {
+                booked.add(new SkierCourseWeek((Long) registration[0], (Long) registration[1], (Integer) registration[2]));
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        List<GroupRegistrationOutcome> outcomes = new ArrayList<>(rows.size());
+        List<GroupRegistrationOutcome> admitted = new ArrayList<>();
+        Map<CourseWeek, List<GroupRegistrationOutcome>> waitingForSeats = new LinkedHashMap<>();
+        for (GroupRegistration row : rows) {
+            GroupRegistrationOutcome outcome = row == null
+                    ? new GroupRegistrationOutcome(null, null, 0, RegistrationStatus.NOT_FOUND)
+                    : new GroupRegistrationOutcome(row.getNumSkier(), row.getNumCourse(), row.getNumWeek(), RegistrationStatus.NOT_FOUND);
+            outcomes.add(outcome);
+            Skier skier = row == null ? null : skiers.get(row.getNumSkier());
+            Course course = row == null ? null : courses.get(row.getNumCourse());
+            if (skier == null || course == null) {
+                continue;
+            }
+            SkierCourseWeek key = new SkierCourseWeek(skier.getNumSkier(), course.getNumCourse(), row.getNumWeek());
+            if (booked.contains(key)) {
+                outcome.setStatus(RegistrationStatus.DUPLICATE);
+            } else if (!ageAllows(course, Period.between(skier.getDateOfBirth(), today).getYears())) {
+                outcome.setStatus(RegistrationStatus.AGE_NOT_ALLOWED);
+            } else {
+                booked.add(key);
+                if (course.getTypeCourse() == TypeCourse.INDIVIDUAL) {
+                    outcome.setStatus(RegistrationStatus.REGISTERED);
+                    admitted.add(outcome);
+                } else {
+                    outcome.setStatus(RegistrationStatus.FULL);
+                    waitingForSeats.computeIfAbsent(new CourseWeek(course.getNumCourse(), row.getNumWeek()), k -> new ArrayList<>()).add(outcome);
+                }
+            }
+        }
+
+        for (Map.Entry<CourseWeek, List<GroupRegistrationOutcome>> entry : waitingForSeats.entrySet()) {
+            List<GroupRegistrationOutcome> candidates = entry.getValue();
+            int granted = courseCapacityServices.reserveSeats(courses.get(entry.getKey().numCourse()), entry.getKey().numWeek(), candidates.size());
+            for (GroupRegistrationOutcome outcome : candidates.subList(0, granted)) {
+                outcome.setStatus(RegistrationStatus.REGISTERED);
+                admitted.add(outcome);
+            }
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_REGISTRATION_ROW, admitted, REGISTRATION_BATCH_SIZE, (statement, outcome) -> {
+            statement.setInt(1, outcome.getNumWeek());
+            statement.setLong(2, outcome.getNumSkier());
+            statement.setLong(3, outcome.getNumCourse());
+        });
+        List<GroupRegistrationOutcome> inserted = new ArrayList<>(admitted.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                GroupRegistrationOutcome outcome = admitted.get(index++);
+                /* Without a count a refused row cannot be told apart : roll the group back */
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    throw new IllegalStateException("Group registration batch returned no row counts");
+                }
+                if (count == 0) {
+                    outcome.setStatus(RegistrationStatus.DUPLICATE);
+                    Course course = courses.get(outcome.getNumCourse());
+                    if (course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+                        courseCapacityServices.releaseSeat(course, outcome.getNumWeek());
+                    }
+                } else {
+                    inserted.add(outcome);
+                }
+            }
+        }
+        log.info("Group registration : " + inserted.size() + " registered out of " + rows.size());
+        /* The batch returns no keys : the occupancy index follows registrations by id */
+        Map<SkierCourseWeek, Long> numRegistrations = new HashMap<>();
+        if (!inserted.isEmpty()) {
+            for (Object[] registration : registrationRepository.findSkierCourseWeeks(skiers.keySet(), courses.keySet())) {
+                numRegistrations.put(new SkierCourseWeek((Long) registration[0], (Long) registration[1], (Integer) registration[2]),
+                        (Long) registration[3]);
+            }
+        }
+        AfterCommit.run(() -> {
+            for (GroupRegistrationOutcome outcome : inserted) {
+                instructorWeekIndex.registrationAdded(outcome.getNumCourse(), outcome.getNumWeek());
+                courseWeekOccupancy.registrationAdded(numRegistrations.get(new SkierCourseWeek(outcome.getNumSkier(),
+                        outcome.getNumCourse(), outcome.getNumWeek())), outcome.getNumCourse(), outcome.getNumWeek());
+                skierCache.invalidate(outcome.getNumSkier());
+            }
+        });
+        return outcomes;
+    }
+
+    private static boolean ageAllows(Course course, int age) {
+        switch (course.getTypeCourse()) {
+            case INDIVIDUAL:
+                return true;
+            case COLLECTIVE_CHILDREN:
+                return age < 16;
+            default:
+                return age >= 16;
+        }
+    }
+
+    private record SkierCourseWeek(Long numSkier, Long numCourse, int numWeek) {
+    }
+
+    private record CourseWeek(Long numCourse, int numWeek) {
     }
 
 }
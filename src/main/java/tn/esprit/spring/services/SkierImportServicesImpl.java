@@ -0,0 +1,245 @@
+package tn.esprit.spring.services;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.SkierImportError;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.indexes.GatePassIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk skier import : rows are validated one by one, then persisted in chunks,
+ * each chunk in its own transaction so Hibernate can batch the inserts
+ * (hibernate.jdbc.batch_size). A failing chunk is replayed row by row so a bad
+ * row is reported without rejecting its neighbours.
+ */
+@Slf4j
+@AllArgsConstructor
+@Service
+public class SkierImportServicesImpl implements ISkierImportServices {
+
+    static final int CHUNK_SIZE = 500;
+    /* firstName,lastName,dateOfBirth,city,typeSub,startDate,price */
+    private static final int CSV_COLUMNS = 7;
+
+    private EntityManager entityManager;
+
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private GatePassIndex gatePassIndex;
+
+    @Override
+    public SkierImportReport importSkiers(List<Skier> skiers) {
+        List<ImportRow> rows = new ArrayList<>(skiers.size());
+        for (int i = 0; i < skiers.size(); i++) {
+            rows.add(new ImportRow(i + 1, skiers.get(i)));
+        }
+        return importRows(rows, new ArrayList<>());
+    }
+
+    @Override
+    public SkierImportReport importSkiersFromCsv(InputStream csv) throws IOException {
+        List<ImportRow> rows = new ArrayList<>();
+        List<SkierImportError> errors = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line;
+            String pending = null;
+            int rowNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                /* A line break inside quotes continues the record on the next line */
+                String record = pending == null ? line : pending + "\n" + line;
+                List<String> columns = splitCsvRecord(record);
+                if (columns == null) {
+                    pending = record;
+                    continue;
+                }
+                pending = null;
+                if (record.isBlank() || (rowNumber == 0 && record.startsWith("firstName"))) {
+                    continue;
+                }
+                rowNumber++;
+                try {
+                    rows.add(new ImportRow(rowNumber, parseCsvRecord(columns)));
+                } catch (IllegalArgumentException | DateTimeParseException exception) {
+                    errors.add(new SkierImportError(rowNumber, exception.getMessage()));
+                }
+            }
+            if (pending != null) {
+                errors.add(new SkierImportError(rowNumber + 1, "Unterminated quoted field"));
+            }
+        }
+        return importRows(rows, errors);
+    }
+
+    private SkierImportReport importRows(List<ImportRow> rows, List<SkierImportError> errors) {
+        int received = rows.size() + errors.size();
+        int imported = 0;
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (ImportRow row : rows) {
+            String error = validate(row.skier());
+            if (error != null) {
+                errors.add(new SkierImportError(row.number(), error));
+                continue;
+            }
+            SubscriptionPeriods.applyEndDate(row.skier().getSubscription());
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                imported += persistChunk(chunk, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += persistChunk(chunk, errors);
+        }
+        errors.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        log.info("Skier import : " + imported + " imported, " + errors.size() + " rejected");
+        return new SkierImportReport(received, imported, errors);
+    }
+
+    private int persistChunk(List<ImportRow> chunk, List<SkierImportError> errors) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> persist(chunk));
+            chunk.forEach(this::imported);
+            return chunk.size();
+        } catch (RuntimeException exception) {
+            log.warn("Import chunk of " + chunk.size() + " rows failed, retrying row by row : " + exception.getMessage());
+        }
+        int imported = 0;
+        for (ImportRow row : chunk) {
+            /* ids handed out by the rolled back chunk must not be reused */
+            row.skier().setNumSkier(null);
+            row.skier().getSubscription().setNumSub(null);
+            try {
+                transaction.executeWithoutResult(status -> persist(List.of(row)));
+                imported(row);
+                imported++;
+            } catch (RuntimeException exception) {
+                errors.add(new SkierImportError(row.number(), rootMessage(exception)));
+            }
+        }
+        return imported;
+    }
+
+    private void persist(List<ImportRow> rows) {
+        for (ImportRow row : rows) {
+            entityManager.persist(row.skier());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void imported(ImportRow row) {
+        eventPublisher.publishEvent(new SubscriptionSavedEvent(row.skier().getSubscription(), null));
+        gatePassIndex.skierSaved(row.skier());
+    }
+
+    private static String validate(Skier skier) {
+        if (skier == null) {
+            return "Empty row";
+        }
+        Subscription subscription = skier.getSubscription();
+        if (subscription == null) {
+            return "Subscription is required";
+        }
+        if (subscription.getTypeSub() == null) {
+            return "Subscription type is required";
+        }
+        if (subscription.getStartDate() == null) {
+            return "Subscription start date is required";
+        }
+        return null;
+    }
+
+    /*
+     * Fields of one RFC 4180 record : a field starting with a quote may hold commas, line breaks
+     * and doubled quotes. Null while a quoted field is still open at the end of the record.
+     */
+    static List<String> splitCsvRecord(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.toString().isBlank()) {
+                field.setLength(0);
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Skier parseCsvRecord(List<String> fields) {
+        if (fields.size() != CSV_COLUMNS) {
+            throw new IllegalArgumentException("Expected " + CSV_COLUMNS + " columns but found " + fields.size());
+        }
+        String[] columns = fields.toArray(new String[0]);
+        Subscription subscription = new Subscription();
+        subscription.setTypeSub(TypeSubscription.valueOf(columns[4].trim().toUpperCase()));
+        subscription.setStartDate(parseDate(columns[5]));
+        String price = columns[6].trim();
+        subscription.setPrice(price.isEmpty() ? null : Float.valueOf(price));
+
+        Skier skier = new Skier();
+        skier.setFirstName(columns[0].trim());
+        skier.setLastName(columns[1].trim());
+        skier.setDateOfBirth(parseDate(columns[2]));
+        skier.setCity(columns[3].trim());
+        skier.setSubscription(subscription);
+        return skier;
+    }
+
+    private static LocalDate parseDate(String value) {
+        String date = value.trim();
+        return date.isEmpty() ? null : LocalDate.parse(date);
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private record ImportRow(int number, Skier skier) {
+    }
+}
@@ -1,18 +1,44 @@
 package tn.esprit.spring.services;
 
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.caches.SkierCache;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierPisteAssignment;
+import tn.esprit.spring.dto.SkierPisteAssignmentReport;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.events.SubscriptionRemovedEvent;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.indexes.CourseWeekOccupancy;
+import tn.esprit.spring.indexes.GatePassIndex;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
+import tn.esprit.spring.indexes.PistePopularityIndex;
 import tn.esprit.spring.repositories.*;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
+@Slf4j
 @AllArgsConstructor
 @Service
 public class SkierServicesImpl implements ISkierServices {
 
+    /* Already recorded pairs, and pairs naming an unknown skier or piste, are skipped by MySQL */
+    static final String INSERT_EXCURSION = "insert ignore into excursion (num_skier, num_piste) values (?, ?)";
+    private static final int EXCURSION_BATCH_SIZE = 500;
+
     private ISkierRepository skierRepository;
 
     private IPisteRepository pisteRepository;
@@ -23,6 +49,24 @@ public class SkierServicesImpl implements ISkierServices {
 
     private ISubscriptionRepository subscriptionRepository;
 
+    private EntityManager entityManager;
+
+    private InstructorWeekIndex instructorWeekIndex;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private SkierCache skierCache;
+
+    private GatePassIndex gatePassIndex;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private PistePopularityIndex pistePopularityIndex;
+
+    private CourseWeekOccupancy courseWeekOccupancy;
+
+    private ICourseCapacityServices courseCapacityServices;
+
 
     @Override
     public List<Skier> retrieveAllSkiers() {
@@ -31,18 +75,14 @@ public class SkierServicesImpl implements ISkierServices {
 
     @Override
     public Skier addSkier(Skier skier) {
-        switch (skier.getSubscription().getTypeSub()) {
-            case ANNUAL:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusYears(1));
-                break;
-            case SEMESTRIEL:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(6));
-                break;
-            case MONTHLY:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(1));
-                break;
-        }
-        return skierRepository.save(skier);
+        SubscriptionPeriods.applyEndDate(skier.getSubscription());
+        Skier saved = skierRepository.save(skier);
+        eventPublisher.publishEvent(new SubscriptionSavedEvent(skier.getSubscription(), null));
+        AfterCommit.run(() -> {
+            skierCache.invalidate(saved.getNumSkier());
+            gatePassIndex.skierSaved(saved);
+        });
+        return saved;
     }
 
     @Override
@@ -50,49 +90,184 @@ public class SkierServicesImpl implements ISkierServices {
         Skier skier = skierRepository.findById(numSkier).orElse(null);
         Subscription subscription = subscriptionRepository.findById(numSubscription).orElse(null);
         skier.setSubscription(subscription);
-        return skierRepository.save(skier);
+        Skier saved = skierRepository.save(skier);
+        AfterCommit.run(() -> {
+            skierCache.invalidate(numSkier);
+            gatePassIndex.skierSaved(saved);
+        });
+        return saved;
     }
 
+    /* A registration of a collective course needs a seat of its week, and is left out without one */
     @Override
+    @Transactional
     public Skier addSkierAndAssignToCourse(Skier skier, Long numCourse) {
         Skier savedSkier = skierRepository.save(skier);
-        Course course = courseRepository.getById(numCourse);
+        Course course = courseRepository.getReferenceById(numCourse);
         Set<Registration> registrations = savedSkier.getRegistrations();
-        for (Registration r : registrations) {
+        for (Iterator<Registration> iterator = registrations.iterator(); iterator.hasNext(); ) {
+            Registration r = iterator.next();
+            if (course.getTypeCourse() != TypeCourse.INDIVIDUAL && !courseCapacityServices.reserveSeat(course, r.getNumWeek())) {
+                log.info("Full Course ! Week " + r.getNumWeek() + " left out for skier " + savedSkier.getNumSkier());
+                iterator.remove();
+                continue;
+            }
             r.setSkier(savedSkier);
             r.setCourse(course);
             registrationRepository.save(r);
         }
+        AfterCommit.run(() -> {
+            for (Registration r : registrations) {
+                instructorWeekIndex.registrationAdded(numCourse, r.getNumWeek());
+                courseWeekOccupancy.registrationAdded(r.getNumRegistration(), numCourse, r.getNumWeek());
+            }
+            skierCache.invalidate(savedSkier.getNumSkier());
+            gatePassIndex.skierSaved(savedSkier);
+        });
         return savedSkier;
     }
 
     @Override
     public void removeSkier(Long numSkier) {
+        /* The subscription is removed with the skier (cascade) */
+        Subscription subscription = skierRepository.findById(numSkier).map(Skier::getSubscription).orElse(null);
+        /* and so are its excursions */
+        List<Long> numPistes = skierRepository.findPisteIdsBySkier(numSkier);
         skierRepository.deleteById(numSkier);
+        AfterCommit.run(() -> {
+            skierCache.invalidate(numSkier);
+            gatePassIndex.skierRemoved(numSkier);
+            numPistes.forEach(numPiste -> pistePopularityIndex.excursionRemoved(numSkier, numPiste));
+        });
+        if (subscription != null) {
+            eventPublisher.publishEvent(new SubscriptionRemovedEvent(subscription));
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Skier retrieveSkier(Long numSkier) {
-        return skierRepository.findById(numSkier).orElse(null);
+        Skier cached = skierCache.get(numSkier);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = skierCache.generation();
+        Skier skier = skierRepository.findById(numSkier).orElse(null);
+        if (skier != null) {
+            /* Serialized long after this session is gone */
+            Hibernate.initialize(skier.getRegistrations());
+            skierCache.put(numSkier, skier, generation);
+        }
+        return skier;
     }
 
     @Override
     public Skier assignSkierToPiste(Long numSkieur, Long numPiste) {
         Skier skier = skierRepository.findById(numSkieur).orElse(null);
         Piste piste = pisteRepository.findById(numPiste).orElse(null);
+        boolean added;
         try {
-            skier.getPistes().add(piste);
+            added = skier.getPistes().add(piste);
         } catch (NullPointerException exception) {
             Set<Piste> pisteList = new HashSet<>();
             pisteList.add(piste);
             skier.setPistes(pisteList);
+            added = true;
         }
 
-        return skierRepository.save(skier);
+        Skier saved = skierRepository.save(skier);
+        boolean newExcursion = added && piste != null;
+        AfterCommit.run(() -> {
+            skierCache.invalidate(numSkieur);
+            if (newExcursion) {
+                pistePopularityIndex.excursionAdded(numSkieur, numPiste);
+            }
+        });
+        return saved;
+    }
+
+    /* Writes the join table directly : no skier, piste or collection is loaded */
+    @Override
+    @Transactional
+    public SkierPisteAssignmentReport assignSkiersToPistes(List<SkierPisteAssignment> assignments) {
+        Set<Excursion> excursions = new LinkedHashSet<>();
+        for (SkierPisteAssignment assignment : assignments) {
+            if (assignment != null && assignment.getNumSkier() != null && assignment.getNumPiste() != null) {
+                excursions.add(new Excursion(assignment.getNumSkier(), assignment.getNumPiste()));
+            }
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_EXCURSION, new ArrayList<>(excursions), EXCURSION_BATCH_SIZE,
+                (statement, excursion) -> {
+                    statement.setLong(1, excursion.numSkier());
+                    statement.setLong(2, excursion.numPiste());
+                });
+        recountSkiers(excursions);
+        return new SkierPisteAssignmentReport(assignments.size(), excursions.size(), insertedRows(counts));
     }
 
     @Override
     public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
         return skierRepository.findBySubscription_TypeSub(typeSubscription);
     }
+
+    @Override
+    public List<Skier> retrieveSkiersAfter(Long numSkier, Integer limit) {
+        return skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(KeysetPaging.after(numSkier), KeysetPaging.limit(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllSkiers(Consumer<Skier> consumer) {
+        KeysetPaging.stream(skierRepository.streamAllByOrderByNumSkier(), consumer, entityManager);
+    }
+
+    @Override
+    public List<SkierDTO> retrieveSkierSummaries() {
+        return skierRepository.findAllSkierDTOs();
+    }
+
+    @Override
+    public List<SkierDTO> retrieveSkierSummariesBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierRepository.findSkierDTOsBySubscriptionType(typeSubscription);
+    }
+
+    @Override
+    public boolean hasValidPass(Long numSkier) {
+        LocalDate today = LocalDate.now();
+        Boolean valid = gatePassIndex.isValid(numSkier, today);
+        if (valid != null) {
+            return valid;
+        }
+        return skierRepository.findById(numSkier)
+                .map(skier -> SubscriptionPeriods.covers(skier.getSubscription(), today))
+                .orElse(false);
+    }
+
+    /* Row counts of a rewritten batch are unknown : the touched pistes are counted again */
+    private void recountSkiers(Set<Excursion> excursions) {
+        Set<Long> numPistes = new HashSet<>();
+        excursions.forEach(excursion -> numPistes.add(excursion.numPiste()));
+        if (numPistes.isEmpty()) {
+            return;
+        }
+        List<Object[]> counts = pisteRepository.countSkiersByPiste(numPistes);
+        AfterCommit.run(() -> counts.forEach(count -> pistePopularityIndex.skiersCounted((Long) count[0], (Long) count[1])));
+    }
+
+    /* Null when the driver rewrote the batch and only reports SUCCESS_NO_INFO */
+    private static Integer insertedRows(int[][] counts) {
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count < 0) {
+                    return null;
+                }
+                inserted += count;
+            }
+        }
+        return inserted;
+    }
+
+    private record Excursion(long numSkier, long numPiste) {
+    }
 }
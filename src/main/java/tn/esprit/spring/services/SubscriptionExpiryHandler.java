@@ -0,0 +1,11 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.ExpiredSubscriptionDTO;
+
+/**
+ * Called once for every subscription that lapses. Every bean implementing it is registered.
+ */
+public interface SubscriptionExpiryHandler {
+
+    void onExpired(ExpiredSubscriptionDTO expired);
+}
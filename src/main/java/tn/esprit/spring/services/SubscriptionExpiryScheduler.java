@@ -0,0 +1,117 @@
+package tn.esprit.spring.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes up exactly when passes lapse instead of polling the subscription table.
+ *
+ * Passes lapse at the start of their end date, so the upcoming distinct end dates are kept
+ * in a sorted set (loaded at start-up, fed by SubscriptionSavedEvent) and a single timer is
+ * armed for the earliest one. When it fires, the ExpiredSubscriptionProcessor hands the newly
+ * expired subscriptions to the handlers and the timer is re-armed for the next date.
+ * Expiries missed while the application was down are caught up at start-up.
+ */
+@Slf4j
+@Component
+public class SubscriptionExpiryScheduler {
+
+    private final ISubscriptionRepository subscriptionRepository;
+    private final ExpiredSubscriptionProcessor processor;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "subscription-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /* Guarded by "this" */
+    private final NavigableSet<LocalDate> upcoming = new TreeSet<>();
+    private ScheduledFuture<?> next;
+    private LocalDate nextDate;
+
+    public SubscriptionExpiryScheduler(ISubscriptionRepository subscriptionRepository,
+                                       ExpiredSubscriptionProcessor processor) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.processor = processor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        synchronized (this) {
+            upcoming.addAll(subscriptionRepository.findUpcomingEndDates(LocalDate.now()));
+        }
+        timer.execute(this::fire);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionSaved(SubscriptionSavedEvent event) {
+        schedule(event.getSubscription().getEndDate());
+    }
+
+    public synchronized void schedule(LocalDate endDate) {
+        if (endDate == null) {
+            return;
+        }
+        if (!endDate.isAfter(LocalDate.now())) {
+            timer.execute(this::fire);
+            return;
+        }
+        if (upcoming.add(endDate) && (nextDate == null || endDate.isBefore(nextDate))) {
+            armNext();
+        }
+    }
+
+    private void fire() {
+        synchronized (this) {
+            upcoming.headSet(LocalDate.now(), true).clear();
+        }
+        try {
+            int processed = processor.processExpired();
+            if (processed > 0) {
+                log.info(processed + " subscriptions expired");
+            }
+        } catch (RuntimeException exception) {
+            log.error("Expired subscription processing failed, retrying in a minute : " + exception.getMessage());
+            timer.schedule(this::fire, 1, TimeUnit.MINUTES);
+            return;
+        }
+        synchronized (this) {
+            armNext();
+        }
+    }
+
+    private void armNext() {
+        if (next != null) {
+            next.cancel(false);
+        }
+        nextDate = upcoming.isEmpty() ? null : upcoming.first();
+        if (nextDate == null) {
+            next = null;
+            return;
+        }
+        long delay = Duration.between(ZonedDateTime.now(), nextDate.atStartOfDay(ZoneId.systemDefault())).toMillis();
+        next = timer.schedule(this::fire, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,35 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.entities.Subscription;
+
+import java.time.LocalDate;
+
+/**
+ * End date of a subscription derived from its type and start date.
+ */
+final class SubscriptionPeriods {
+
+    private SubscriptionPeriods() {
+    }
+
+    static void applyEndDate(Subscription subscription) {
+        switch (subscription.getTypeSub()) {
+            case ANNUAL:
+                subscription.setEndDate(subscription.getStartDate().plusYears(1));
+                break;
+            case SEMESTRIEL:
+                subscription.setEndDate(subscription.getStartDate().plusMonths(6));
+                break;
+            case MONTHLY:
+                subscription.setEndDate(subscription.getStartDate().plusMonths(1));
+                break;
+        }
+    }
+
+    /* A subscription without end date never expires */
+    static boolean covers(Subscription subscription, LocalDate day) {
+        return subscription != null && subscription.getStartDate() != null
+                && !subscription.getStartDate().isAfter(day)
+                && (subscription.getEndDate() == null || !subscription.getEndDate().isBefore(day));
+    }
+}
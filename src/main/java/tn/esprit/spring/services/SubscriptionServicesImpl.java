@@ -1,18 +1,23 @@
 package tn.esprit.spring.services;
 
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import tn.esprit.spring.entities.Skier;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
-import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.indexes.RecurringRevenueAggregates;
+import tn.esprit.spring.indexes.SubscriptionIntervalIndex;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @AllArgsConstructor
@@ -21,27 +26,35 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
 
     private ISubscriptionRepository subscriptionRepository;
 
-    private ISkierRepository skierRepository;
+    private ExpiredSubscriptionProcessor expiredSubscriptionProcessor;
+
+    private RecurringRevenueAggregates revenueAggregates;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private SubscriptionIntervalIndex intervalIndex;
+
+    private EntityManager entityManager;
 
     @Override
     public Subscription addSubscription(Subscription subscription) {
-        switch (subscription.getTypeSub()) {
-            case ANNUAL:
-                subscription.setEndDate(subscription.getStartDate().plusYears(1));
-                break;
-            case SEMESTRIEL:
-                subscription.setEndDate(subscription.getStartDate().plusMonths(6));
-                break;
-            case MONTHLY:
-                subscription.setEndDate(subscription.getStartDate().plusMonths(1));
-                break;
-        }
-        return subscriptionRepository.save(subscription);
+        SubscriptionPeriods.applyEndDate(subscription);
+        Subscription saved = subscriptionRepository.save(subscription);
+        eventPublisher.publishEvent(new SubscriptionSavedEvent(saved, null));
+        return saved;
     }
 
     @Override
     public Subscription updateSubscription(Subscription subscription) {
-        return subscriptionRepository.save(subscription);
+        Subscription previous = subscription.getNumSub() == null ? null
+                : subscriptionRepository.findById(subscription.getNumSub())
+                /* Copied before the save : the managed instance is overwritten by the merge */
+                .map(current -> new Subscription(current.getNumSub(), current.getStartDate(),
+                        current.getEndDate(), current.getPrice(), current.getTypeSub()))
+                .orElse(null);
+        Subscription saved = subscriptionRepository.save(subscription);
+        eventPublisher.publishEvent(new SubscriptionSavedEvent(saved, previous));
+        return saved;
     }
 
     @Override
@@ -50,31 +63,54 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
     }
 
     @Override
-    public Set<Subscription> getSubscriptionByType(TypeSubscription type) {
+    public List<Subscription> getSubscriptionByType(TypeSubscription type) {
         return subscriptionRepository.findByTypeSubOrderByStartDateAsc(type);
     }
 
+    @Override
+    public List<Subscription> getSubscriptionByTypeAfter(TypeSubscription type, LocalDate afterDate, Long afterId, Integer limit) {
+        return subscriptionRepository.findByTypeSubAfter(type,
+                afterDate == null ? LocalDate.EPOCH : afterDate,
+                KeysetPaging.after(afterId),
+                PageRequest.of(0, KeysetPaging.limit(limit).max()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSubscriptionsByType(TypeSubscription type, Consumer<Subscription> consumer) {
+        KeysetPaging.stream(subscriptionRepository.streamByTypeSub(type), consumer, entityManager);
+    }
+
     @Override
     public List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate) {
+        if (intervalIndex.isReady()) {
+            return intervalIndex.startedBetween(startDate, endDate);
+        }
         return subscriptionRepository.getSubscriptionsByStartDateBetween(startDate, endDate);
     }
 
     @Override
-    @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
-    public void retrieveSubscriptions() {
-        for (Subscription sub: subscriptionRepository.findDistinctOrderByEndDateAsc()) {
-            Skier   aSkier = skierRepository.findBySubscription(sub);
-            log.info(sub.getNumSub().toString() + " | "+ sub.getEndDate().toString()
-                    + " | "+ aSkier.getFirstName() + " " + aSkier.getLastName());
+    public List<Subscription> retrieveSubscriptionsActiveBetween(LocalDate startDate, LocalDate endDate) {
+        if (intervalIndex.isReady()) {
+            return intervalIndex.activeDuring(startDate, endDate);
         }
+        return subscriptionRepository.findActiveBetween(startDate, endDate);
+    }
+
+    /* Expiries are now pushed by SubscriptionExpiryScheduler, this runs the same processing on demand */
+    @Override
+    public void retrieveSubscriptions() {
+        expiredSubscriptionProcessor.processExpired();
     }
 
    // @Scheduled(cron = "* 0 9 1 * *") /* Cron expression to run a job every month at 9am */
     @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
     public void showMonthlyRecurringRevenue() {
-        Float revenue = subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY)
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL)/6
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL)/12;
-        log.info("Monthly Revenue = " + revenue);
+        log.info("Monthly Revenue = " + revenueAggregates.monthlyRecurringRevenue());
+    }
+
+    @Override
+    public double retrieveMonthlyRecurringRevenue() {
+        return revenueAggregates.monthlyRecurringRevenue();
     }
 }
@@ -0,0 +1,70 @@
+package tn.esprit.spring.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.entities.WaitlistEntry;
+import tn.esprit.spring.entities.WaitlistStatus;
+import tn.esprit.spring.events.SeatReleasedEvent;
+import tn.esprit.spring.repositories.IWaitlistEntryRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves the waiting lists off the request threads. A released seat (after its transaction
+ * commits) schedules the promotion of its course week on a single background thread ; a
+ * periodic sweep also goes over every week that still has waiting skiers, which picks up
+ * capacity increases and seats released on other nodes.
+ */
+@Slf4j
+@Component
+public class WaitlistPromoter {
+
+    private final IRegistrationServices registrationServices;
+    private final IWaitlistEntryRepository waitlistRepository;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-promotion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WaitlistPromoter(IRegistrationServices registrationServices, IWaitlistEntryRepository waitlistRepository) {
+        this.registrationServices = registrationServices;
+        this.waitlistRepository = waitlistRepository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatReleased(SeatReleasedEvent event) {
+        worker.execute(() -> promote(event.getNumCourse(), event.getNumWeek()));
+    }
+
+    @Scheduled(fixedDelayString = "${waitlist.sweep-ms:60000}", initialDelayString = "${waitlist.sweep-ms:60000}")
+    public void sweep() {
+        for (Object[] row : waitlistRepository.findCourseWeeksByStatus(WaitlistStatus.WAITING)) {
+            Long numCourse = (Long) row[0];
+            int numWeek = (Integer) row[1];
+            worker.execute(() -> promote(numCourse, numWeek));
+        }
+    }
+
+    void promote(Long numCourse, int numWeek) {
+        try {
+            WaitlistEntry entry;
+            while ((entry = registrationServices.promoteNextWaiting(numCourse, numWeek)) != null) {
+                log.info("Waitlist entry " + entry.getNumEntry() + " of course " + numCourse + " week " + numWeek
+                        + " is " + entry.getStatus());
+            }
+        } catch (RuntimeException e) {
+            /* The entries stay WAITING and are retried by the next sweep */
+            log.warn("Waitlist promotion of course " + numCourse + " week " + numWeek + " failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+}
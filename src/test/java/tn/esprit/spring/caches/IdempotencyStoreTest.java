@@ -0,0 +1,183 @@
+package tn.esprit.spring.caches;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static final TypeReference<Integer> INTEGER = new TypeReference<>() {};
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyStore store;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyStore(2, Duration.ofMinutes(5), Duration.ofSeconds(5), meterRegistry, new ObjectMapper());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("idempotency.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void execute_WithTheSameKey_ShouldReplayTheFirstOutcome() {
+        // When
+        Integer first = store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+        Integer retry = store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(1, retry);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, requests("replayed"));
+    }
+
+    @Test
+    void execute_WithoutKeyOrOnAnotherOperation_ShouldRunAgain() {
+        // When
+        store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+        store.execute("k1", "PUT /b", null, INTEGER, calls::incrementAndGet);
+        store.execute(null, "PUT /a", null, INTEGER, calls::incrementAndGet);
+
+        // Then
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_AfterAFailure_ShouldRunTheRetry() {
+        // Given
+        assertThrows(IllegalStateException.class, () -> store.execute("k1", "PUT /a", null, INTEGER, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        // When
+        Integer retry = store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+
+        // Then
+        assertEquals(1, retry);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void execute_PastMaxSize_ShouldDropTheLeastRecentlyUsedOutcome() {
+        // Given
+        store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+        store.execute("k2", "PUT /a", null, INTEGER, calls::incrementAndGet);
+        store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+
+        // When
+        store.execute("k3", "PUT /a", null, INTEGER, calls::incrementAndGet);
+        Integer k2 = store.execute("k2", "PUT /a", null, INTEGER, calls::incrementAndGet);
+
+        // Then
+        assertEquals(2, store.size());
+        assertEquals(4, k2);
+    }
+
+    @Test
+    void execute_WhileTheFirstRuns_ShouldWaitForItsOutcome() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> store.execute("k1", "PUT /a", null, INTEGER, () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return calls.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // When
+            new Thread(release::countDown).start();
+            Integer duplicate = store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet);
+
+            // Then
+            assertEquals(1, duplicate);
+            assertEquals(1, first.get());
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_WhenTheFirstRunsTooLong_ShouldAnswerConflict() throws Exception {
+        // Given
+        store = new IdempotencyStore(2, Duration.ofMinutes(5), Duration.ofMillis(50), meterRegistry, new ObjectMapper());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> store.execute("k1", "PUT /a", null, INTEGER, () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // When / Then
+            assertThrows(ResponseStatusException.class, () -> store.execute("k1", "PUT /a", null, INTEGER, calls::incrementAndGet));
+            assertEquals(0, calls.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_WithTheSameKeyAndAnotherBody_ShouldAnswerUnprocessable() {
+        // Given
+        store.execute("k1", "PUT /a", List.of(1L, 2L), INTEGER, calls::incrementAndGet);
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> store.execute("k1", "PUT /a", List.of(1L, 3L), INTEGER, calls::incrementAndGet));
+
+        // Then
+        assertEquals(422, exception.getStatusCode().value());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_OnReplay_ShouldReturnADetachedCopyOfTheOutcome() {
+        // Given
+        TypeReference<List<String>> strings = new TypeReference<>() {};
+        List<String> outcome = new ArrayList<>(List.of("Bleue"));
+        store.execute("k1", "PUT /a", null, strings, () -> outcome);
+        outcome.add("Rouge");
+
+        // When
+        List<String> retry = store.execute("k1", "PUT /a", null, strings, () -> List.of());
+
+        // Then
+        assertEquals(List.of("Bleue"), retry);
+        assertNotSame(outcome, retry);
+    }
+}
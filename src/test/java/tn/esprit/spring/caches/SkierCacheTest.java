@@ -0,0 +1,126 @@
+package tn.esprit.spring.caches;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.entities.Skier;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkierCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SkierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SkierCache(2, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    void get_ShouldReturnPutSkierAndCountHitsAndMisses() {
+        // Given
+        Skier skier = skier(1L);
+        assertNull(cache.get(1L));
+        cache.put(1L, skier, cache.generation());
+
+        // When
+        Skier result = cache.get(1L);
+
+        // Then
+        assertSame(skier, result);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void put_BeyondMaxSize_ShouldEvictLeastRecentlyUsed() {
+        // Given
+        cache.put(1L, skier(1L), cache.generation());
+        cache.put(2L, skier(2L), cache.generation());
+        cache.get(1L);
+
+        // When
+        cache.put(3L, skier(3L), cache.generation());
+
+        // Then
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(2, cache.size());
+        assertEquals(1.0, meterRegistry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    void put_AfterConcurrentInvalidation_ShouldBeDropped() {
+        // Given
+        long generation = cache.generation();
+        cache.invalidate(1L);
+
+        // When
+        cache.put(1L, skier(1L), generation);
+
+        // Then
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void put_WithZeroTtl_ShouldNotCache() {
+        // Given
+        cache = new SkierCache(2, Duration.ZERO, meterRegistry);
+        cache.put(1L, skier(1L), cache.generation());
+
+        // When / Then
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void concurrentUse_ShouldStayWithinMaxSizeAndNeverServeAnInvalidatedLoad() throws InterruptedException {
+        // Given
+        SkierCache shared = new SkierCache(64, Duration.ofMinutes(1), meterRegistry);
+        AtomicBoolean staleServed = new AtomicBoolean();
+        Skier stale = skier(-1L);
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int worker = 0; worker < 8; worker++) {
+            workers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    long numSkier = random.nextLong(256);
+                    if (random.nextInt(10) == 0) {
+                        /* A load racing with the write of this skier */
+                        long generation = shared.generation();
+                        shared.invalidate(numSkier);
+                        shared.put(numSkier, stale, generation);
+                    } else if (shared.get(numSkier) == null) {
+                        shared.put(numSkier, skier(numSkier), shared.generation());
+                    }
+                    if (shared.get(numSkier) == stale) {
+                        staleServed.set(true);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(1, TimeUnit.MINUTES));
+
+        // Then
+        assertFalse(staleServed.get());
+        assertTrue(shared.size() <= 64, "size " + shared.size());
+    }
+
+    private static Skier skier(Long numSkier) {
+        Skier skier = new Skier();
+        skier.setNumSkier(numSkier);
+        return skier;
+    }
+}
@@ -0,0 +1,94 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PreEncodedJsonTest {
+
+    private final PreEncodedJson json = new PreEncodedJson();
+
+    @Test
+    void respond_ShouldEncodeOncePerSource() throws Exception {
+        // Given
+        ObjectMapper objectMapper = spy(new ObjectMapper());
+        List<String> catalog = List.of("Bleue", "Rouge");
+
+        // When
+        ResponseEntity<byte[]> first = json.respond(catalog, objectMapper, null, null);
+        ResponseEntity<byte[]> second = json.respond(catalog, objectMapper, null, null);
+        json.respond(List.of("Noire"), objectMapper, null, null);
+
+        // Then
+        assertEquals("[\"Bleue\",\"Rouge\"]", new String(first.getBody()));
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        verify(objectMapper, times(2)).writeValueAsBytes(any());
+    }
+
+    @Test
+    void respond_WithMatchingEtag_ShouldAnswerNotModified() {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> catalog = List.of("Bleue");
+        String etag = json.respond(catalog, objectMapper, null, null).getHeaders().getETag();
+
+        // When
+        ResponseEntity<byte[]> response = json.respond(catalog, objectMapper, "\"other\", " + etag, null);
+
+        // Then
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void respond_AcceptingGzip_ShouldSendTheCompressedBytes() throws Exception {
+        // When
+        ResponseEntity<byte[]> response = json.respond(List.of("Bleue"), new ObjectMapper(), null, "gzip, deflate, br");
+
+        // Then
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals("[\"Bleue\"]", new String(in.readAllBytes()));
+        }
+    }
+
+    @Test
+    void respond_ShouldTagEachEncodingApartAndMatchEither() {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> catalog = List.of("Bleue");
+        String plain = json.respond(catalog, objectMapper, null, null).getHeaders().getETag();
+        String gzip = json.respond(catalog, objectMapper, null, "gzip").getHeaders().getETag();
+
+        // When
+        ResponseEntity<byte[]> revalidated = json.respond(catalog, objectMapper, gzip, null);
+
+        // Then
+        assertNotEquals(plain, gzip);
+        assertTrue(gzip.endsWith("-gzip\""));
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertEquals(plain, revalidated.getHeaders().getETag());
+    }
+
+    @Test
+    void acceptsGzip_ShouldFollowTheQValues() {
+        assertTrue(PreEncodedJson.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PreEncodedJson.acceptsGzip("br;q=1.0, gzip;q=0.5"));
+        assertTrue(PreEncodedJson.acceptsGzip("*"));
+        assertFalse(PreEncodedJson.acceptsGzip("gzip;q=0"));
+        assertFalse(PreEncodedJson.acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(PreEncodedJson.acceptsGzip("*;q=0"));
+        assertFalse(PreEncodedJson.acceptsGzip("identity"));
+        assertFalse(PreEncodedJson.acceptsGzip(null));
+    }
+}
@@ -9,15 +9,19 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.caches.IdempotencyStore;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.services.ISkierImportServices;
 import tn.esprit.spring.services.ISkierServices;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -33,6 +37,12 @@ class SkierRestControllerTest {
     @MockBean
     private ISkierServices skierServices;
 
+    @MockBean
+    private ISkierImportServices skierImportServices;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -41,6 +51,9 @@ class SkierRestControllerTest {
 
     @BeforeEach
     void setUp() {
+        when(idempotencyStore.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+
         // Create test subscription
         testSubscription = new Subscription();
         testSubscription.setNumSub(1L);
@@ -124,6 +137,19 @@ class SkierRestControllerTest {
                 .andExpect(jsonPath("$.numSkier").value(1L));
     }
 
+    @Test
+    void assignToPiste_WithIdempotencyKey_ShouldGoThroughTheStore() throws Exception {
+        // Given
+        when(skierServices.assignSkierToPiste(1L, 2L)).thenReturn(testSkier);
+
+        // When & Then
+        mockMvc.perform(put("/skier/assignToPiste/{numSkier}/{numPiste}", 1L, 2L)
+                .header(IdempotencyStore.HEADER, "retry-42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.numSkier").value(1L));
+        verify(idempotencyStore).execute(eq("retry-42"), eq("PUT /skier/assignToPiste/1/2"), isNull(), any(), any());
+    }
+
     @Test
     void retrieveSkiersBySubscriptionType_ShouldReturnFilteredSkiers() throws Exception {
         // Given
@@ -192,4 +218,19 @@ class SkierRestControllerTest {
                 .andExpect(jsonPath("$[0].numSkier").value(1L))
                 .andExpect(jsonPath("$[0].firstName").value("John"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllSkiers_WithCursor_ShouldReturnKeysetPage() throws Exception {
+        // Given
+        when(skierServices.retrieveSkiersAfter(0L, 50)).thenReturn(Arrays.asList(testSkier));
+
+        // When & Then
+        mockMvc.perform(get("/skier/all")
+                .param("after", "0")
+                .param("limit", "50"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].numSkier").value(1L));
+    }
+}
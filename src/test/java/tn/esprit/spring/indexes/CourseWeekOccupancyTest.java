@@ -0,0 +1,156 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CourseWeekOccupancyTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CourseWeekOccupancy occupancy;
+
+    private void givenCounts() {
+        when(registrationRepository.countByCourseAndWeek()).thenReturn(List.of(
+                new Object[]{1L, 3, 4L}, new Object[]{1L, 12, 6L}, new Object[]{2L, 5, 1L}));
+    }
+
+    private static int taken(CourseWeekOccupancy.Matrix matrix, long numCourse, int numWeek) {
+        for (int row = 0; row < matrix.courses().length; row++) {
+            if (matrix.courses()[row] == numCourse) {
+                return matrix.taken()[row][numWeek];
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    void matrix_BeforeRebuild_ShouldNotAnswer() {
+        assertNull(occupancy.matrix());
+    }
+
+    @Test
+    void matrix_ShouldHoldTheGroupedCounts() {
+        // Given
+        givenCounts();
+
+        // When
+        occupancy.rebuild();
+        CourseWeekOccupancy.Matrix matrix = occupancy.matrix();
+
+        // Then
+        assertEquals(2, matrix.courses().length);
+        assertEquals(53, matrix.weeks());
+        assertEquals(4, taken(matrix, 1L, 3));
+        assertEquals(6, taken(matrix, 1L, 12));
+        assertEquals(1, taken(matrix, 2L, 5));
+        assertEquals(0, taken(matrix, 2L, 12));
+    }
+
+    @Test
+    void registrationAdded_ShouldIncrementAndGrowTheMatrix() {
+        // Given
+        givenCounts();
+        occupancy.rebuild();
+
+        // When
+        occupancy.registrationAdded(100L, 1L, 3);
+        occupancy.registrationAdded(101L, 7L, 60);
+        CourseWeekOccupancy.Matrix matrix = occupancy.matrix();
+
+        // Then
+        assertEquals(5, taken(matrix, 1L, 3));
+        assertEquals(1, taken(matrix, 7L, 60));
+        assertTrue(matrix.weeks() > 60);
+        assertEquals(6, taken(matrix, 1L, 12));
+    }
+
+    @Test
+    void registrationMoved_ShouldMoveTheSeat() {
+        // Given
+        givenCounts();
+        occupancy.rebuild();
+
+        // When
+        occupancy.registrationMoved(100L, 2L, 1L, 5);
+        CourseWeekOccupancy.Matrix matrix = occupancy.matrix();
+
+        // Then
+        assertEquals(0, taken(matrix, 2L, 5));
+        assertEquals(1, taken(matrix, 1L, 5));
+    }
+
+    @Test
+    void rebuild_ShouldKeepRegistrationsTheCountDidNotSee() {
+        // Given : a registration is committed after the grouped count was read
+        when(registrationRepository.countByCourseAndWeek()).thenAnswer(invocation -> {
+            occupancy.registrationAdded(100L, 1L, 3);
+            return List.<Object[]>of(new Object[]{1L, 3, 4L});
+        });
+        when(registrationRepository.findCourseWeeksByIds(List.of(100L))).thenReturn(List.of());
+
+        // When
+        occupancy.rebuild();
+
+        // Then
+        assertEquals(5, taken(occupancy.matrix(), 1L, 3));
+    }
+
+    @Test
+    void rebuild_ShouldNotCountTwiceARegistrationTheCountSaw() {
+        // Given : committed before the grouped count was read, notified while it is read
+        when(registrationRepository.countByCourseAndWeek()).thenAnswer(invocation -> {
+            occupancy.registrationAdded(100L, 1L, 3);
+            return List.<Object[]>of(new Object[]{1L, 3, 5L});
+        });
+        when(registrationRepository.findCourseWeeksByIds(List.of(100L))).thenReturn(List.<Object[]>of(new Object[]{100L, 1L, 3}));
+
+        // When
+        occupancy.rebuild();
+
+        // Then
+        assertEquals(5, taken(occupancy.matrix(), 1L, 3));
+    }
+
+    @Test
+    void rebuild_ShouldApplyAMoveTheCountDidNotSee() {
+        // Given : the count saw the registration in course 2, it then moves to course 1
+        when(registrationRepository.countByCourseAndWeek()).thenAnswer(invocation -> {
+            occupancy.registrationMoved(100L, 2L, 1L, 5);
+            return List.<Object[]>of(new Object[]{2L, 5, 1L});
+        });
+        when(registrationRepository.findCourseWeeksByIds(List.of(100L))).thenReturn(List.<Object[]>of(new Object[]{100L, 2L, 5}));
+
+        // When
+        occupancy.rebuild();
+
+        // Then
+        assertEquals(0, taken(occupancy.matrix(), 2L, 5));
+        assertEquals(1, taken(occupancy.matrix(), 1L, 5));
+    }
+
+    @Test
+    void matrixOf_ShouldBuildTheSameMatrixWithoutTheIndex() {
+        // When
+        CourseWeekOccupancy.Matrix matrix = CourseWeekOccupancy.Matrix.of(List.<Object[]>of(new Object[]{4L, 2, 3L}));
+
+        // Then
+        assertArrayEquals(new long[]{4L}, matrix.courses());
+        assertEquals(3, taken(matrix, 4L, 2));
+    }
+}
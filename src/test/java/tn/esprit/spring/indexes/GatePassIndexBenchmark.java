@@ -0,0 +1,60 @@
+package tn.esprit.spring.indexes;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of one gate validation against a station-sized index.
+ * Run with : mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tn.esprit.spring.indexes.GatePassIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatePassIndexBenchmark {
+
+    @Param({"10000", "200000"})
+    int skiers;
+
+    private GatePassIndex index;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        today = LocalDate.now();
+        List<Object[]> windows = new ArrayList<>(skiers);
+        for (long numSkier = 1; numSkier <= skiers; numSkier++) {
+            LocalDate start = today.minusDays(numSkier % 400);
+            windows.add(new Object[]{numSkier, numSkier, start, start.plusYears(1)});
+        }
+        ISkierRepository skierRepository = mock(ISkierRepository.class);
+        when(skierRepository.findPassWindows()).thenReturn(windows);
+        index = new GatePassIndex(skierRepository);
+        index.rebuild();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Boolean validate() {
+        return index.isValid(ThreadLocalRandom.current().nextLong(1, skiers * 2L), today);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GatePassIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
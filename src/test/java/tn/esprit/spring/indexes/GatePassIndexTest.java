@@ -0,0 +1,138 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.events.SubscriptionRemovedEvent;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GatePassIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+
+    @Mock
+    private ISkierRepository skierRepository;
+
+    private GatePassIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new GatePassIndex(skierRepository);
+    }
+
+    @Test
+    void isValid_BeforeRebuild_ShouldNotAnswer() {
+        assertNull(index.isValid(1L, TODAY));
+    }
+
+    @Test
+    void isValid_ShouldFollowSubscriptionWindow() {
+        // Given
+        givenWindows(List.<Object[]>of(
+                new Object[]{1L, 10L, TODAY.minusDays(10), TODAY.plusDays(10)},
+                new Object[]{2L, 20L, TODAY.minusYears(1), TODAY.minusDays(1)},
+                new Object[]{3L, 30L, TODAY.plusDays(1), TODAY.plusMonths(1)}));
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertTrue(index.isValid(1L, TODAY));
+        assertFalse(index.isValid(2L, TODAY));
+        assertFalse(index.isValid(3L, TODAY));
+        assertFalse(index.isValid(4L, TODAY));
+    }
+
+    @Test
+    void skierWrites_ShouldBeAppliedIncrementally() {
+        // Given
+        givenWindows(List.of());
+        index.rebuild();
+        Subscription subscription = new Subscription(10L, TODAY.minusDays(1), TODAY.plusDays(1), 100f, TypeSubscription.MONTHLY);
+
+        // When / Then
+        index.skierSaved(skier(1L, subscription));
+        assertTrue(index.isValid(1L, TODAY));
+
+        Subscription previous = new Subscription(10L, TODAY.minusDays(1), TODAY.plusDays(1), 100f, TypeSubscription.MONTHLY);
+        subscription.setEndDate(TODAY.minusDays(1));
+        index.onSubscriptionSaved(new SubscriptionSavedEvent(subscription, previous));
+        assertFalse(index.isValid(1L, TODAY));
+
+        index.skierSaved(skier(1L, new Subscription(11L, TODAY, null, 100f, TypeSubscription.ANNUAL)));
+        assertTrue(index.isValid(1L, TODAY.plusYears(5)));
+
+        index.onSubscriptionRemoved(new SubscriptionRemovedEvent(new Subscription(11L, TODAY, null, 100f, TypeSubscription.ANNUAL)));
+        assertFalse(index.isValid(1L, TODAY));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removals_ShouldKeepEveryOtherSkierReachableWhileGrowing() {
+        // Given
+        List<Object[]> windows = new ArrayList<>();
+        for (long numSkier = 1; numSkier <= 5000; numSkier++) {
+            windows.add(new Object[]{numSkier, numSkier, TODAY, TODAY});
+        }
+        givenWindows(List.of());
+        index.rebuild();
+        for (Object[] window : windows) {
+            index.skierSaved(skier((Long) window[0],
+                    new Subscription((Long) window[1], TODAY, TODAY, 10f, TypeSubscription.MONTHLY)));
+        }
+
+        // When
+        for (long numSkier = 1; numSkier <= 5000; numSkier += 3) {
+            index.skierRemoved(numSkier);
+        }
+
+        // Then
+        for (long numSkier = 1; numSkier <= 5000; numSkier++) {
+            assertEquals((numSkier - 1) % 3 != 0, index.isValid(numSkier, TODAY), "skier " + numSkier);
+        }
+        assertEquals(3333, index.size());
+    }
+
+    @Test
+    void rebuild_ShouldKeepChangesAppliedWhileReadingTheDatabase() {
+        // Given : skier 2 subscribes and skier 1 is removed after the windows were read
+        when(skierRepository.findPassWindows()).thenAnswer(invocation -> {
+            index.skierSaved(skier(2L, new Subscription(20L, TODAY, TODAY, 10f, TypeSubscription.MONTHLY)));
+            index.skierRemoved(1L);
+            return List.<Object[]>of(new Object[]{1L, 10L, TODAY, TODAY});
+        });
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertFalse(index.isValid(1L, TODAY));
+        assertTrue(index.isValid(2L, TODAY));
+        assertEquals(1, index.size());
+    }
+
+    private void givenWindows(List<Object[]> windows) {
+        when(skierRepository.findPassWindows()).thenReturn(windows);
+    }
+
+    private static Skier skier(Long numSkier, Subscription subscription) {
+        Skier skier = new Skier();
+        skier.setNumSkier(numSkier);
+        skier.setSubscription(subscription);
+        return skier;
+    }
+}
@@ -0,0 +1,99 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GatePassSnapshotTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+
+    @Mock
+    private ISkierRepository skierRepository;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("gate-passes.snap");
+    }
+
+    @Test
+    void restore_ShouldServeTheWrittenState() throws Exception {
+        // Given
+        when(skierRepository.findPassWindows()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 10L, TODAY.minusDays(1), TODAY.plusDays(1)},
+                new Object[]{2L, 20L, TODAY.minusYears(1), TODAY.minusDays(1)}));
+        GatePassIndex source = new GatePassIndex(skierRepository);
+        source.rebuild();
+        new GatePassSnapshot(source, file, Duration.ofHours(1)).write();
+
+        // When
+        GatePassIndex restarted = new GatePassIndex(skierRepository);
+        new GatePassSnapshot(restarted, file, Duration.ofHours(1)).restore();
+
+        // Then
+        assertTrue(restarted.isReady());
+        assertTrue(restarted.isValid(1L, TODAY));
+        assertFalse(restarted.isValid(2L, TODAY));
+        assertEquals(2, restarted.size());
+    }
+
+    @Test
+    void restore_WithCorruptedEntries_ShouldBeIgnored() throws Exception {
+        // Given
+        when(skierRepository.findPassWindows()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 10L, TODAY.minusDays(1), TODAY.plusDays(1)}));
+        GatePassIndex source = new GatePassIndex(skierRepository);
+        source.rebuild();
+        new GatePassSnapshot(source, file, Duration.ofHours(1)).write();
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(GatePassSnapshot.HEADER_BYTES + 20);
+            raw.writeInt(0);
+        }
+
+        // When
+        GatePassIndex restarted = new GatePassIndex(skierRepository);
+        new GatePassSnapshot(restarted, file, Duration.ofHours(1)).restore();
+
+        // Then
+        assertFalse(restarted.isReady());
+    }
+
+    @Test
+    void restore_WithOtherVersion_ShouldBeIgnored() throws Exception {
+        // Given
+        when(skierRepository.findPassWindows()).thenReturn(List.of());
+        GatePassIndex source = new GatePassIndex(skierRepository);
+        source.rebuild();
+        new GatePassSnapshot(source, file, Duration.ofHours(1)).write();
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(4);
+            raw.writeInt(GatePassSnapshot.VERSION + 1);
+        }
+
+        // When
+        GatePassIndex restarted = new GatePassIndex(skierRepository);
+        new GatePassSnapshot(restarted, file, Duration.ofHours(1)).restore();
+
+        // Then
+        assertFalse(restarted.isReady());
+    }
+}
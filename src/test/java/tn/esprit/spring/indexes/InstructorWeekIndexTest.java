@@ -0,0 +1,73 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InstructorWeekIndexTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @Mock
+    private IInstructorRepository instructorRepository;
+
+    @InjectMocks
+    private InstructorWeekIndex index;
+
+    private void givenIndexedData() {
+        when(courseRepository.findCourseSupports()).thenReturn(List.of(
+                new Object[]{1L, Support.SKI}, new Object[]{2L, Support.SNOWBOARD}, new Object[]{3L, Support.SKI}));
+        when(registrationRepository.findDistinctCourseWeeks()).thenReturn(List.of(
+                new Object[]{1L, 12}, new Object[]{1L, 3}, new Object[]{2L, 5}, new Object[]{3L, 12}));
+        when(instructorRepository.findInstructorCoursePairs()).thenReturn(List.of(
+                new Object[]{10L, 1L}, new Object[]{10L, 2L}, new Object[]{10L, 3L}));
+    }
+
+    @Test
+    void weeks_BeforeRebuild_ShouldNotAnswer() {
+        assertNull(index.weeks(10L, Support.SKI));
+    }
+
+    @Test
+    void weeks_ShouldBeDistinctAndSortedPerSupport() {
+        // Given
+        givenIndexedData();
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertEquals(List.of(3, 12), index.weeks(10L, Support.SKI));
+        assertEquals(List.of(5), index.weeks(10L, Support.SNOWBOARD));
+        assertEquals(List.of(), index.weeks(99L, Support.SKI));
+    }
+
+    @Test
+    void registrationAdded_ShouldUpdateTheInstructorMask() {
+        // Given
+        givenIndexedData();
+        index.rebuild();
+
+        // When
+        index.registrationAdded(3L, 1);
+
+        // Then
+        assertEquals(List.of(1, 3, 12), index.weeks(10L, Support.SKI));
+    }
+}
@@ -0,0 +1,125 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.dto.PistePopularityDTO;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PistePopularityIndexTest {
+
+    @Mock
+    private IPisteRepository pisteRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PistePopularityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PistePopularityIndex(pisteRepository, transactionManager);
+    }
+
+    @Test
+    void top_BeforeRebuild_ShouldNotAnswer() {
+        assertNull(index.top(10, null));
+    }
+
+    @Test
+    void top_ShouldRankBySkiersThenIdAndFilterByColor() {
+        // Given
+        givenCounts();
+
+        // When
+        List<PistePopularityDTO> top = index.top(2, null);
+        List<PistePopularityDTO> blue = index.top(10, Color.BLUE);
+
+        // Then
+        assertEquals(List.of(2L, 1L), top.stream().map(PistePopularityDTO::getNumPiste).toList());
+        assertEquals(List.of(1L, 3L), blue.stream().map(PistePopularityDTO::getNumPiste).toList());
+        assertTrue(index.top(10, Color.BLACK).isEmpty());
+    }
+
+    @Test
+    void counters_ShouldMoveThePistesInTheRanking() {
+        // Given
+        givenCounts();
+
+        // When
+        for (long numSkier = 100; numSkier < 110; numSkier++) {
+            index.excursionAdded(numSkier, 3L);
+        }
+        index.excursionRemoved(7L, 2L);
+        index.skiersCounted(1L, 0);
+        index.pisteSaved(new Piste(4L, "Nouvelle", Color.BLACK, 800, 20, null));
+        index.pisteRemoved(2L);
+
+        // Then
+        List<PistePopularityDTO> top = index.top(10, null);
+        assertEquals(List.of(3L, 1L, 4L), top.stream().map(PistePopularityDTO::getNumPiste).toList());
+        assertEquals(12L, top.get(0).getSkiers());
+        assertEquals(1, index.top(10, Color.BLACK).size());
+    }
+
+    @Test
+    void rebuild_ShouldKeepChangesMadeWhileReadingTheCounts() {
+        // Given : a piste is created and another removed after the counts were read
+        when(pisteRepository.findPistePopularity()).thenAnswer(invocation -> {
+            index.pisteSaved(new Piste(4L, "Nouvelle", Color.BLACK, 800, 20, null));
+            index.pisteRemoved(2L);
+            return List.of(
+                    new PistePopularityDTO(1L, "Bleue du col", Color.BLUE, 5L),
+                    new PistePopularityDTO(2L, "Rouge", Color.RED, 9L));
+        });
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertEquals(List.of(1L, 4L), index.top(10, null).stream().map(PistePopularityDTO::getNumPiste).toList());
+    }
+
+    @Test
+    void rebuild_ShouldSettleExcursionsChangedWhileReadingTheCounts() {
+        // Given : skier 7 joined piste 1 before the read, skier 8 after it, skier 9 left piste 2 after it
+        when(pisteRepository.findPistePopularity()).thenAnswer(invocation -> {
+            index.excursionAdded(7L, 1L);
+            index.excursionAdded(8L, 1L);
+            index.excursionRemoved(9L, 2L);
+            return List.of(
+                    new PistePopularityDTO(1L, "Bleue du col", Color.BLUE, 6L),
+                    new PistePopularityDTO(2L, "Rouge", Color.RED, 9L));
+        });
+        when(pisteRepository.findExcursionsBySkiers(Set.of(7L, 8L, 9L)))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, 1L}, new Object[]{9L, 2L}, new Object[]{9L, 1L}));
+
+        // When
+        index.rebuild();
+
+        // Then
+        List<PistePopularityDTO> top = index.top(10, null);
+        assertEquals(List.of(2L, 1L), top.stream().map(PistePopularityDTO::getNumPiste).toList());
+        assertEquals(List.of(8L, 7L), top.stream().map(PistePopularityDTO::getSkiers).toList());
+    }
+
+    private void givenCounts() {
+        when(pisteRepository.findPistePopularity()).thenReturn(List.of(
+                new PistePopularityDTO(1L, "Bleue du col", Color.BLUE, 5L),
+                new PistePopularityDTO(2L, "Rouge", Color.RED, 9L),
+                new PistePopularityDTO(3L, "Bleue du lac", Color.BLUE, 2L)));
+        index.rebuild();
+    }
+}
@@ -0,0 +1,82 @@
+package tn.esprit.spring.indexes;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.dto.PisteSearchCriteria;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bitmap search against the equivalent JPQL query, on the H2 test database.
+ * Run with : mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tn.esprit.spring.indexes.PisteSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PisteSearchBenchmark {
+
+    @Param({"200", "2000"})
+    int pistes;
+
+    private ConfigurableApplicationContext context;
+    private IPisteRepository pisteRepository;
+    private PisteSearchIndex index;
+    private PisteSearchCriteria criteria;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run();
+        pisteRepository = context.getBean(IPisteRepository.class);
+        Random random = new Random(42);
+        Color[] colors = Color.values();
+        List<Piste> seeded = new ArrayList<>(pistes);
+        for (int i = 0; i < pistes; i++) {
+            seeded.add(new Piste(null, "Piste " + i, colors[random.nextInt(colors.length)],
+                    200 + random.nextInt(3000), 5 + random.nextInt(60), null));
+        }
+        pisteRepository.saveAll(seeded);
+        index = context.getBean(PisteSearchIndex.class);
+        index.rebuild();
+        criteria = new PisteSearchCriteria(EnumSet.of(Color.BLUE, Color.RED), 800, 2200, 15, 45, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Piste> bitmapIndex() {
+        return index.search(criteria);
+    }
+
+    @Benchmark
+    public List<Piste> jpql() {
+        return pisteRepository.searchPistes(false, criteria.getColors(), criteria.getMinLength(),
+                criteria.getMaxLength(), criteria.getMinSlope(), criteria.getMaxSlope());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PisteSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
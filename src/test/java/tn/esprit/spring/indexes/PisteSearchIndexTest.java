@@ -0,0 +1,104 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dto.PisteSearchCriteria;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PisteSearchIndexTest {
+
+    @Mock
+    private IPisteRepository pisteRepository;
+
+    private PisteSearchIndex index;
+    private List<Piste> pistes;
+
+    @BeforeEach
+    void setUp() {
+        index = new PisteSearchIndex(pisteRepository);
+        Random random = new Random(42);
+        Color[] colors = Color.values();
+        pistes = new ArrayList<>();
+        for (long numPiste = 1; numPiste <= 300; numPiste++) {
+            pistes.add(new Piste(numPiste, "Piste " + numPiste, colors[random.nextInt(colors.length)],
+                    200 + random.nextInt(3000), 5 + random.nextInt(60), null));
+        }
+    }
+
+    @Test
+    void search_BeforeRebuild_ShouldNotAnswer() {
+        assertNull(index.search(new PisteSearchCriteria()));
+    }
+
+    @Test
+    void search_ShouldMatchTheCriteriaEvaluatedPisteByPiste() {
+        // Given
+        when(pisteRepository.findAll()).thenReturn(pistes);
+        index.rebuild();
+
+        // When / Then
+        for (boolean any : new boolean[]{false, true}) {
+            assertSameAsScan(new PisteSearchCriteria(null, null, null, null, null, any));
+            assertSameAsScan(new PisteSearchCriteria(EnumSet.of(Color.BLUE, Color.RED), null, null, null, null, any));
+            assertSameAsScan(new PisteSearchCriteria(null, 1000, 2000, null, null, any));
+            assertSameAsScan(new PisteSearchCriteria(Set.of(Color.BLACK), null, 1500, 30, null, any));
+            assertSameAsScan(new PisteSearchCriteria(Set.of(Color.GREEN), 500, 2500, 10, 40, any));
+            assertSameAsScan(new PisteSearchCriteria(null, 5000, null, null, 4, any));
+        }
+    }
+
+    @Test
+    void pisteWrites_ShouldBeSearchable() {
+        // Given
+        when(pisteRepository.findAll()).thenReturn(pistes);
+        index.rebuild();
+        PisteSearchCriteria longBlack = new PisteSearchCriteria(Set.of(Color.BLACK), 10_000, null, null, null, false);
+
+        // When / Then
+        index.pisteSaved(new Piste(1000L, "Vallee blanche", Color.BLACK, 20_000, 35, null));
+        assertEquals(List.of(1000L), index.search(longBlack).stream().map(Piste::getNumPiste).toList());
+
+        index.pisteRemoved(1000L);
+        assertTrue(index.search(longBlack).isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldKeepWritesMadeWhileReadingThePistes() {
+        // Given : a piste is saved and piste 1 removed after the pistes were read
+        when(pisteRepository.findAll()).thenAnswer(invocation -> {
+            index.pisteSaved(new Piste(1000L, "Vallee blanche", Color.BLACK, 20_000, 35, null));
+            index.pisteRemoved(1L);
+            return pistes;
+        });
+
+        // When
+        index.rebuild();
+
+        // Then
+        List<Long> found = index.search(new PisteSearchCriteria()).stream().map(Piste::getNumPiste).toList();
+        assertTrue(found.contains(1000L));
+        assertFalse(found.contains(1L));
+        assertEquals(300, found.size());
+    }
+
+    private void assertSameAsScan(PisteSearchCriteria criteria) {
+        List<Long> expected = pistes.stream().filter(criteria::matches).map(Piste::getNumPiste).toList();
+        List<Long> actual = index.search(criteria).stream().map(Piste::getNumPiste).toList();
+        assertEquals(expected, actual);
+    }
+}
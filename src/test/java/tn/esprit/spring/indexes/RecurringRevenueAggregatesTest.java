@@ -0,0 +1,132 @@
+package tn.esprit.spring.indexes;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.entities.RevenueAggregate;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.IRevenueAggregateRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecurringRevenueAggregatesTest {
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private IRevenueAggregateRepository aggregateRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecurringRevenueAggregates aggregates;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aggregates = new RecurringRevenueAggregates(subscriptionRepository, aggregateRepository, transactionManager, meterRegistry);
+    }
+
+    @Test
+    void monthlyRecurringRevenue_WithoutSubscriptions_ShouldBeZero() {
+        assertEquals(0.0, aggregates.monthlyRecurringRevenue());
+    }
+
+    @Test
+    void monthlyRecurringRevenue_ShouldFollowAddsAndUpdates() {
+        // Given
+        Subscription monthly = new Subscription(1L, LocalDate.now(), null, 60f, TypeSubscription.MONTHLY);
+        Subscription annual = new Subscription(2L, LocalDate.now(), null, 1200f, TypeSubscription.ANNUAL);
+        aggregates.added(monthly);
+        aggregates.added(annual);
+
+        // When
+        annual.setPrice(600f);
+        aggregates.replaced(TypeSubscription.ANNUAL, 1200f, annual);
+
+        // Then
+        assertEquals(60 + 600 / 12.0, aggregates.monthlyRecurringRevenue(), 0.001);
+        assertEquals(110.0, meterRegistry.get("subscriptions.mrr").gauge().value(), 0.001);
+    }
+
+    @Test
+    void reconcile_ShouldKeepSubscriptionsTheReadDidNotSee() {
+        // Given : a monthly subscription is committed after the grouped sums were read
+        when(subscriptionRepository.sumAndCountByTypeSub()).thenAnswer(invocation -> {
+            aggregates.added(new Subscription(3L, LocalDate.now(), null, 40f, TypeSubscription.MONTHLY));
+            return List.<Object[]>of(new Object[]{TypeSubscription.MONTHLY, 60.0, 1L});
+        });
+        when(subscriptionRepository.findAllById(List.of(3L))).thenReturn(List.of());
+
+        // When
+        aggregates.reconcile();
+
+        // Then
+        assertEquals(50.0, aggregates.monthlyRecurringRevenue(), 0.001);
+    }
+
+    @Test
+    void reconcile_ShouldNotCountTwiceASubscriptionTheReadSaw() {
+        // Given : committed before the grouped sums were read, notified while they are read
+        Subscription monthly = new Subscription(3L, LocalDate.now(), null, 40f, TypeSubscription.MONTHLY);
+        when(subscriptionRepository.sumAndCountByTypeSub()).thenAnswer(invocation -> {
+            aggregates.added(monthly);
+            return List.<Object[]>of(new Object[]{TypeSubscription.MONTHLY, 100.0, 2L});
+        });
+        when(subscriptionRepository.findAllById(List.of(3L))).thenReturn(List.of(monthly));
+
+        // When
+        aggregates.reconcile();
+
+        // Then
+        assertEquals(50.0, aggregates.monthlyRecurringRevenue(), 0.001);
+    }
+
+    @Test
+    void reconcile_ShouldApplyAnUpdateTheReadDidNotSee() {
+        // Given : the read saw the annual subscription at 1200, it is then updated to 600
+        Subscription annual = new Subscription(2L, LocalDate.now(), null, 600f, TypeSubscription.ANNUAL);
+        when(subscriptionRepository.sumAndCountByTypeSub()).thenAnswer(invocation -> {
+            aggregates.replaced(TypeSubscription.ANNUAL, 1200f, annual);
+            return List.<Object[]>of(new Object[]{TypeSubscription.ANNUAL, 1200.0, 1L});
+        });
+        when(subscriptionRepository.findAllById(List.of(2L)))
+                .thenReturn(List.of(new Subscription(2L, LocalDate.now(), null, 1200f, TypeSubscription.ANNUAL)));
+
+        // When
+        aggregates.reconcile();
+
+        // Then
+        assertEquals(50.0, aggregates.monthlyRecurringRevenue(), 0.001);
+    }
+
+    @Test
+    void load_ShouldReconcileThePersistedAggregates() {
+        // Given : the persisted aggregates predate a subscription made before the restart
+        when(aggregateRepository.findAll()).thenReturn(List.of(
+                new RevenueAggregate(TypeSubscription.MONTHLY, 60.0, 1L)));
+        when(subscriptionRepository.sumAndCountByTypeSub()).thenReturn(List.<Object[]>of(
+                new Object[]{TypeSubscription.MONTHLY, 160.0, 2L}));
+
+        // When
+        aggregates.load();
+
+        // Then
+        assertEquals(80.0, aggregates.monthlyRecurringRevenue(), 0.001);
+        verify(subscriptionRepository).sumAndCountByTypeSub();
+    }
+}
@@ -0,0 +1,141 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.entities.CatalogVersion;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICatalogVersionRepository;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IPisteRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceCatalogTest {
+
+    @Mock
+    private IPisteRepository pisteRepository;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @Mock
+    private ICatalogVersionRepository catalogVersionRepository;
+
+    private ReferenceCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ReferenceCatalog(pisteRepository, courseRepository, catalogVersionRepository);
+    }
+
+    @Test
+    void reads_BeforeLoad_ShouldNotAnswer() {
+        assertNull(catalog.pistes());
+        assertNull(catalog.course(1L));
+    }
+
+    @Test
+    void refresh_ShouldReloadOnlyWhenTheVersionMoved() {
+        // Given
+        givenVersion(3);
+        when(pisteRepository.findAll()).thenReturn(List.of(piste(2L), piste(1L)));
+        when(courseRepository.findAll()).thenReturn(List.of(course(1L)));
+
+        // When
+        catalog.refresh();
+        catalog.refresh();
+
+        // Then
+        assertEquals(List.of(1L, 2L), catalog.pistes().stream().map(Piste::getNumPiste).toList());
+        assertEquals(1L, catalog.course(1L).getNumCourse());
+        verify(pisteRepository, times(1)).findAll();
+    }
+
+    @Test
+    void writes_ShouldSwapTheSnapshotAndBumpTheSharedVersion() {
+        // Given
+        givenVersion(1);
+        when(pisteRepository.findAll()).thenReturn(List.of(piste(1L)));
+        when(courseRepository.findAll()).thenReturn(List.of());
+        when(catalogVersionRepository.bumpAndGet(ReferenceCatalog.CATALOG)).thenReturn(2L, 3L, 4L);
+        catalog.refresh();
+        List<Piste> before = catalog.pistes();
+
+        // When
+        catalog.pisteSaved(piste(5L));
+        catalog.pisteRemoved(1L);
+        catalog.courseSaved(course(7L));
+
+        // Then
+        assertEquals(List.of(1L), before.stream().map(Piste::getNumPiste).toList());
+        assertEquals(List.of(5L), catalog.pistes().stream().map(Piste::getNumPiste).toList());
+        assertNotNull(catalog.course(7L));
+        verify(catalogVersionRepository, times(3)).bumpAndGet(ReferenceCatalog.CATALOG);
+    }
+
+    @Test
+    void refresh_AfterOwnWrites_ShouldNotReload() {
+        // Given
+        givenVersion(1);
+        when(pisteRepository.findAll()).thenReturn(List.of(piste(1L)));
+        when(courseRepository.findAll()).thenReturn(List.of());
+        catalog.refresh();
+        when(catalogVersionRepository.bumpAndGet(ReferenceCatalog.CATALOG)).thenReturn(2L);
+        catalog.pisteSaved(piste(5L));
+
+        // When
+        givenVersion(2);
+        catalog.refresh();
+
+        // Then
+        verify(pisteRepository, times(1)).findAll();
+        assertEquals(List.of(1L, 5L), catalog.pistes().stream().map(Piste::getNumPiste).toList());
+    }
+
+    @Test
+    void refresh_WhenAnotherNodeWroteInBetween_ShouldReload() {
+        // Given : another node bumped to 2 before this node's write made it 3
+        givenVersion(1);
+        when(pisteRepository.findAll())
+                .thenReturn(List.of(piste(1L)))
+                .thenReturn(List.of(piste(1L), piste(4L), piste(5L)));
+        when(courseRepository.findAll()).thenReturn(List.of());
+        catalog.refresh();
+        when(catalogVersionRepository.bumpAndGet(ReferenceCatalog.CATALOG)).thenReturn(3L);
+        catalog.pisteSaved(piste(5L));
+
+        // When
+        givenVersion(3);
+        catalog.refresh();
+
+        // Then
+        verify(pisteRepository, times(2)).findAll();
+        assertEquals(List.of(1L, 4L, 5L), catalog.pistes().stream().map(Piste::getNumPiste).toList());
+    }
+
+    private void givenVersion(long version) {
+        when(catalogVersionRepository.findById(ReferenceCatalog.CATALOG))
+                .thenReturn(Optional.of(new CatalogVersion(ReferenceCatalog.CATALOG, version)));
+    }
+
+    private static Piste piste(Long numPiste) {
+        return new Piste(numPiste, "Piste " + numPiste, Color.BLUE, 1200, 25, null);
+    }
+
+    private static Course course(Long numCourse) {
+        return new Course(numCourse, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 100f, 2, 6, null);
+    }
+}
@@ -0,0 +1,84 @@
+package tn.esprit.spring.indexes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.events.SubscriptionRemovedEvent;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionIntervalIndexTest {
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @InjectMocks
+    private SubscriptionIntervalIndex index;
+
+    private void save(long numSub, LocalDate start, LocalDate end, TypeSubscription type) {
+        index.onSubscriptionSaved(new SubscriptionSavedEvent(new Subscription(numSub, start, end, 100f, type), null));
+    }
+
+    private static List<Long> ids(List<Subscription> subscriptions) {
+        return subscriptions.stream().map(Subscription::getNumSub).toList();
+    }
+
+    @Test
+    void activeDuring_ShouldReturnOverlappingSubscriptionsOnly() {
+        // Given
+        save(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2025, 1, 1), TypeSubscription.ANNUAL);
+        save(2L, LocalDate.of(2024, 11, 1), LocalDate.of(2024, 12, 1), TypeSubscription.MONTHLY);
+        save(3L, LocalDate.of(2024, 12, 15), LocalDate.of(2025, 1, 15), TypeSubscription.MONTHLY);
+
+        // When
+        List<Subscription> active = index.activeDuring(LocalDate.of(2024, 12, 10), LocalDate.of(2024, 12, 20));
+
+        // Then
+        assertEquals(List.of(1L, 3L), ids(active));
+    }
+
+    @Test
+    void startedBetween_ShouldFollowUpdatesAndRemovals() {
+        // Given
+        save(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2025, 1, 1), TypeSubscription.ANNUAL);
+        save(2L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1), TypeSubscription.MONTHLY);
+
+        // When
+        save(2L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 7, 1), TypeSubscription.MONTHLY);
+        index.onSubscriptionRemoved(new SubscriptionRemovedEvent(new Subscription(1L, null, null, null, null)));
+
+        // Then
+        assertEquals(List.of(), ids(index.startedBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1))));
+        assertEquals(List.of(2L), ids(index.startedBetween(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 6, 1))));
+    }
+
+    @Test
+    void rebuild_ShouldKeepEventsAppliedWhileReadingTheDatabase() {
+        // Given : subscription 2 is saved and 1 removed after the rows were read
+        when(subscriptionRepository.findByNumSubGreaterThanOrderByNumSubAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            save(2L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 1), TypeSubscription.MONTHLY);
+            index.onSubscriptionRemoved(new SubscriptionRemovedEvent(new Subscription(1L, null, null, null, null)));
+            return List.of(new Subscription(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2025, 1, 1), 100f, TypeSubscription.ANNUAL));
+        });
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertEquals(List.of(2L), ids(index.startedBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31))));
+    }
+}
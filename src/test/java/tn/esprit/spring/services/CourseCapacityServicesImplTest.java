@@ -0,0 +1,118 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.repository.Query;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseWeekCapacityRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseCapacityServicesImplTest {
+
+    @Mock
+    private ICourseWeekCapacityRepository capacityRepository;
+
+    @InjectMocks
+    private CourseCapacityServicesImpl capacityServices;
+
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        course = new Course();
+        course.setNumCourse(10L);
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+    }
+
+    @Test
+    void reserveSeat_WhenTheWeekHasSeats_ShouldTakeOne() {
+        // Given
+        when(capacityRepository.reserveSeat(10L, 3)).thenReturn(1);
+
+        // When / Then
+        assertTrue(capacityServices.reserveSeat(course, 3));
+    }
+
+    @Test
+    void reserveSeat_WhenTheWeekIsFull_ShouldRefuse() {
+        // Given
+        when(capacityRepository.reserveSeat(10L, 3)).thenReturn(0);
+
+        // When / Then
+        assertFalse(capacityServices.reserveSeat(course, 3));
+    }
+
+    @Test
+    void reserveSeat_ShouldCreateTheCounterOnceInTheCallersTransaction() {
+        // Given
+        course.setCapacity(8);
+        when(capacityRepository.reserveSeat(10L, 3)).thenReturn(1);
+
+        // When
+        capacityServices.reserveSeat(course, 3);
+        capacityServices.reserveSeat(course, 3);
+
+        // Then : seeded by the insert itself, no second transaction counts the registrations
+        verify(capacityRepository, times(1)).createCounter(10L, 3, 8);
+        verify(capacityRepository, times(2)).reserveSeat(10L, 3);
+    }
+
+    @Test
+    void createCounter_ShouldSeedFromTheRegistrationsAndKeepAnExistingCounter() throws NoSuchMethodException {
+        // When
+        String insert = ICourseWeekCapacityRepository.class.getMethod("createCounter", Long.class, int.class, int.class)
+                .getAnnotation(Query.class).value();
+
+        // Then
+        assertTrue(insert.contains("count(*)"));
+        assertTrue(insert.contains("on duplicate key update"));
+    }
+
+    @Test
+    void reserveSeats_WhenNotAllFit_ShouldTakeTheFreeOnes() {
+        // Given
+        when(capacityRepository.reserveSeats(10L, 3, 4)).thenReturn(0);
+        when(capacityRepository.findFreeSeats(10L, 3)).thenReturn(2);
+        when(capacityRepository.reserveSeats(10L, 3, 2)).thenReturn(1);
+
+        // When / Then
+        assertEquals(2, capacityServices.reserveSeats(course, 3, 4));
+    }
+
+    @Test
+    void releaseSeat_ShouldOnlyGiveBackATakenSeat() throws NoSuchMethodException {
+        // When
+        capacityServices.releaseSeat(course, 3);
+
+        // Then : the update never takes the counter below 0
+        verify(capacityRepository).releaseSeat(10L, 3);
+        String update = ICourseWeekCapacityRepository.class.getMethod("releaseSeat", Long.class, int.class)
+                .getAnnotation(Query.class).value();
+        assertTrue(update.contains("c.taken > 0"));
+    }
+
+    @Test
+    void updateCapacity_ShouldApplyTheCourseCapacityOrTheDefault() {
+        // Given
+        Course sized = new Course();
+        sized.setNumCourse(11L);
+        sized.setCapacity(12);
+
+        // When
+        capacityServices.updateCapacity(sized);
+        capacityServices.updateCapacity(course);
+
+        // Then
+        verify(capacityRepository).updateCapacity(11L, 12);
+        verify(capacityRepository).updateCapacity(10L, CourseCapacityServicesImpl.DEFAULT_CAPACITY);
+    }
+}
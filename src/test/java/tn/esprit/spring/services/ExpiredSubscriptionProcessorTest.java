@@ -0,0 +1,184 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.dto.ExpiredSubscriptionDTO;
+import tn.esprit.spring.entities.JobWatermark;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.repositories.IJobWatermarkRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiredSubscriptionProcessorTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private IJobWatermarkRepository watermarkRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredSubscriptionProcessor processor;
+    private final List<ExpiredSubscriptionDTO> expired = new ArrayList<>();
+    private final List<Long> handled = new ArrayList<>();
+    private JobWatermark saved;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new ExpiredSubscriptionProcessor(subscriptionRepository, watermarkRepository, meterRegistry,
+                List.of(sub -> handled.add(sub.getNumSub())));
+    }
+
+    @Test
+    void processExpired_WithTiesOnTheEndDate_ShouldPageOnTheIdAndHandleEachOnce() {
+        // Given : more subscriptions than a chunk, all ending the same day
+        int total = ExpiredSubscriptionProcessor.EXPIRY_CHUNK_SIZE + 2;
+        for (long numSub = total; numSub >= 1; numSub--) {
+            expired.add(new ExpiredSubscriptionDTO(numSub, TODAY.minusDays(1), "First", "Last"));
+        }
+        givenKeysetReads();
+        givenWatermarkStore();
+
+        // When
+        int processed = processor.processExpired();
+
+        // Then
+        assertEquals(total, processed);
+        assertEquals(total, handled.stream().distinct().count());
+        assertEquals(TODAY.minusDays(1), saved.getLastDate());
+        assertEquals(total, saved.getLastId());
+        assertEquals(total, meterRegistry.counter("subscriptions.expired.processed").count());
+    }
+
+    @Test
+    void processExpired_AfterAPartialRun_ShouldResumeFromTheWatermark() {
+        // Given : the first run dies after its first chunk
+        for (long numSub = 1; numSub <= ExpiredSubscriptionProcessor.EXPIRY_CHUNK_SIZE + 10; numSub++) {
+            expired.add(new ExpiredSubscriptionDTO(numSub, TODAY.minusDays(numSub % 7 + 1), "First", "Last"));
+        }
+        givenWatermarkStore();
+        when(subscriptionRepository.findExpiredAfter(any(), any(), any(), any()))
+                .thenAnswer(invocation -> keysetRead(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2), invocation.getArgument(3)))
+                .thenThrow(new QueryTimeoutException("connection lost"));
+        assertThrows(QueryTimeoutException.class, () -> processor.processExpired());
+        int firstRun = handled.size();
+
+        // When
+        givenKeysetReads();
+        int processed = processor.processExpired();
+
+        // Then
+        assertEquals(ExpiredSubscriptionProcessor.EXPIRY_CHUNK_SIZE, firstRun);
+        assertEquals(10, processed);
+        assertEquals(expired.size(), handled.size());
+        assertEquals(expired.size(), handled.stream().distinct().count());
+    }
+
+    @Test
+    void processExpired_WithNothingExpired_ShouldKeepTheWatermark() {
+        // Given
+        when(watermarkRepository.findById(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB))
+                .thenReturn(Optional.of(new JobWatermark(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB,
+                        TODAY.minusDays(3), 42L)));
+        when(subscriptionRepository.findExpiredAfter(eq(TODAY.minusDays(3)), eq(42L), any(), any())).thenReturn(List.of());
+
+        // When
+        int processed = processor.processExpired();
+
+        // Then
+        assertEquals(0, processed);
+        assertTrue(handled.isEmpty());
+        verify(watermarkRepository, never()).save(any());
+        verify(subscriptionRepository, times(1)).findExpiredAfter(any(), any(), any(), any());
+    }
+
+    private void givenKeysetReads() {
+        doAnswer(invocation -> keysetRead(invocation.getArgument(0), invocation.getArgument(1),
+                invocation.getArgument(2), invocation.getArgument(3)))
+                .when(subscriptionRepository).findExpiredAfter(any(), any(), any(), any());
+    }
+
+    /* Same predicate and order as the repository query */
+    private List<ExpiredSubscriptionDTO> keysetRead(LocalDate afterDate, Long afterId, LocalDate today, Pageable page) {
+        return expired.stream()
+                .filter(sub -> !sub.getEndDate().isAfter(today))
+                .filter(sub -> sub.getEndDate().isAfter(afterDate)
+                        || (sub.getEndDate().isEqual(afterDate) && sub.getNumSub() > afterId))
+                .sorted(Comparator.comparing(ExpiredSubscriptionDTO::getEndDate).thenComparing(ExpiredSubscriptionDTO::getNumSub))
+                .limit(page.getPageSize())
+                .toList();
+    }
+
+    /* Saved watermarks are copied, as the database would keep them */
+    private void givenWatermarkStore() {
+        when(watermarkRepository.findById(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB))
+                .thenAnswer(invocation -> Optional.ofNullable(saved == null ? null
+                        : new JobWatermark(saved.getJobName(), saved.getLastDate(), saved.getLastId())));
+        when(watermarkRepository.save(any(JobWatermark.class))).thenAnswer(invocation -> {
+            JobWatermark watermark = invocation.getArgument(0);
+            saved = new JobWatermark(watermark.getJobName(), watermark.getLastDate(), watermark.getLastId());
+            return watermark;
+        });
+    }
+
+    private static Subscription ending(Long numSub, LocalDate endDate) {
+        return new Subscription(numSub, endDate.minusMonths(1), endDate, 100f, TypeSubscription.MONTHLY);
+    }
+
+    @Test
+    void onSubscriptionSaved_WithAnEndDateTheWatermarkPassed_ShouldHandItOver() {
+        // Given
+        JobWatermark watermark = new JobWatermark(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB, TODAY.minusDays(1), 40L);
+        when(watermarkRepository.findById(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB)).thenReturn(Optional.of(watermark));
+        when(subscriptionRepository.findExpiredById(50L))
+                .thenReturn(Optional.of(new ExpiredSubscriptionDTO(50L, TODAY.minusDays(10), "First", "Last")));
+
+        // When : created back-dated, then updated from a future end date to a past one
+        processor.onSubscriptionSaved(new SubscriptionSavedEvent(ending(50L, TODAY.minusDays(10)), null));
+        processor.onSubscriptionSaved(new SubscriptionSavedEvent(ending(50L, TODAY.minusDays(10)),
+                ending(50L, TODAY.plusDays(30))));
+
+        // Then
+        assertEquals(List.of(50L, 50L), handled);
+        assertEquals(2, meterRegistry.counter("subscriptions.expired.processed").count());
+    }
+
+    @Test
+    void onSubscriptionSaved_AheadOfTheWatermarkOrAlreadyHandedOver_ShouldLeaveItToTheRun() {
+        // Given
+        JobWatermark watermark = new JobWatermark(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB, TODAY.minusDays(1), 40L);
+        when(watermarkRepository.findById(ExpiredSubscriptionProcessor.EXPIRED_SUBSCRIPTIONS_JOB)).thenReturn(Optional.of(watermark));
+
+        // When
+        processor.onSubscriptionSaved(new SubscriptionSavedEvent(ending(50L, TODAY.minusDays(1)), null));
+        processor.onSubscriptionSaved(new SubscriptionSavedEvent(ending(51L, TODAY.plusDays(30)), null));
+        processor.onSubscriptionSaved(new SubscriptionSavedEvent(ending(30L, TODAY.minusDays(10)),
+                ending(30L, TODAY.minusDays(5))));
+
+        // Then
+        assertTrue(handled.isEmpty());
+        verify(subscriptionRepository, never()).findExpiredById(any());
+    }
+}
@@ -0,0 +1,123 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.dto.PassageEvent;
+import tn.esprit.spring.dto.PassageIngestionReport;
+import tn.esprit.spring.repositories.IPistePassageCountRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PassageIngestionServicesImplTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2025, 1, 15, 9, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IPistePassageCountRepository passageCountRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PassageIngestionServicesImpl ingestion;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestion = new PassageIngestionServicesImpl(jdbcTemplate, transactionManager, passageCountRepository, meterRegistry, 3, 1000);
+    }
+
+    @Test
+    void submit_BeyondQueueCapacity_ShouldRejectAndReportInvalidEvents() {
+        // When
+        PassageIngestionReport report = ingestion.submit(Arrays.asList(
+                new PassageEvent(1L, 1L, NINE),
+                new PassageEvent(2L, 1L, NINE),
+                new PassageEvent(3L, null, NINE),
+                new PassageEvent(4L, 2L, NINE),
+                new PassageEvent(5L, 2L, NINE)));
+
+        // Then
+        assertEquals(5, report.getReceived());
+        assertEquals(3, report.getAccepted());
+        assertEquals(1, report.getInvalid());
+        assertEquals(1, report.getRejected());
+        assertEquals(1.0, meterRegistry.get("passages.events").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainAndFlush_ShouldUpsertOneRowPerPisteAndMinute() {
+        // Given
+        ingestion.submit(List.of(
+                new PassageEvent(1L, 1L, NINE.plusSeconds(5)),
+                new PassageEvent(2L, 1L, NINE.plusSeconds(59)),
+                new PassageEvent(3L, 2L, NINE.plusSeconds(30))));
+
+        // When
+        ingestion.drainAndFlush(true);
+
+        // Then
+        ArgumentCaptor<Collection<Map.Entry<?, long[]>>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(PassageIngestionServicesImpl.UPSERT), rows.capture(), anyInt(), any());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(3, rows.getValue().stream().mapToLong(row -> row.getValue()[0]).sum());
+    }
+
+    @Test
+    void drainAndFlush_AfterFailure_ShouldRetryTheSameCounters() {
+        // Given
+        ingestion.submit(List.of(new PassageEvent(1L, 1L, NINE)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[0][]);
+
+        // When
+        ingestion.drainAndFlush(true);
+        ingestion.drainAndFlush(true);
+        ingestion.drainAndFlush(true);
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void drainAndFlush_AfterFailure_ShouldWaitBeforeTheNextAttempt() {
+        // Given : every call is due for a flush
+        ingestion = new PassageIngestionServicesImpl(jdbcTemplate, transactionManager, passageCountRepository, meterRegistry, 3, 0);
+        ingestion.submit(List.of(new PassageEvent(1L, 1L, NINE)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        // When
+        ingestion.drainAndFlush(false);
+        ingestion.drainAndFlush(false);
+        ingestion.submit(List.of(new PassageEvent(2L, 1L, NINE)));
+        ingestion.drainAndFlush(false);
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(transactionManager, never()).commit(any());
+    }
+}
@@ -0,0 +1,119 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationStatus;
+import tn.esprit.spring.dto.RegistrationTicket;
+import tn.esprit.spring.dto.TicketStatus;
+import tn.esprit.spring.entities.Registration;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationIntakeServicesImplTest {
+
+    @Mock
+    private IRegistrationServices registrationServices;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RegistrationIntakeServicesImpl intake;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        intake = new RegistrationIntakeServicesImpl(registrationServices, transactionManager, meterRegistry,
+                2, 1, 10, Duration.ofMinutes(15));
+    }
+
+    private static Registration week(int numWeek) {
+        return new Registration(null, numWeek, null, null);
+    }
+
+    @Test
+    void submit_ShouldQueueRejectWhenFullAndRefuseInvalidRequests() {
+        // When
+        RegistrationTicket first = intake.submit(week(3), 1L, 10L);
+        RegistrationTicket second = intake.submit(week(3), 2L, 10L);
+        RegistrationTicket third = intake.submit(week(3), 3L, 10L);
+        RegistrationTicket invalid = intake.submit(week(3), null, 10L);
+
+        // Then
+        assertEquals(TicketStatus.QUEUED, first.getStatus());
+        assertEquals(TicketStatus.QUEUED, second.getStatus());
+        assertEquals(TicketStatus.REJECTED, third.getStatus());
+        assertEquals(TicketStatus.INVALID, invalid.getStatus());
+        assertSame(first, intake.retrieveTicket(first.getTicketId()));
+        assertNull(intake.retrieveTicket(third.getTicketId()));
+        assertEquals(2.0, meterRegistry.get("registrations.intake.queue.size").gauge().value());
+        verifyNoInteractions(registrationServices);
+    }
+
+    @Test
+    void drain_ShouldCommitEachRequestAndCompleteTheTickets() {
+        // Given
+        RegistrationTicket first = intake.submit(week(3), 1L, 10L);
+        RegistrationTicket second = intake.submit(week(4), 2L, 10L);
+        when(registrationServices.registerSkierToCourse(any(), any(), any()))
+                .thenReturn(RegistrationResult.of(RegistrationStatus.REGISTERED));
+
+        // When
+        int drained = intake.drain();
+
+        // Then
+        assertEquals(2, drained);
+        assertEquals(TicketStatus.DONE, intake.retrieveTicket(first.getTicketId()).getStatus());
+        assertEquals(RegistrationStatus.REGISTERED, intake.retrieveTicket(second.getTicketId()).getResult().getStatus());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(2, meterRegistry.get("registrations.intake.latency").timer().count());
+    }
+
+    @Test
+    void drain_WhenARequestFails_ShouldOnlyFailItsTicket() {
+        // Given
+        RegistrationTicket failing = intake.submit(week(3), 1L, 10L);
+        RegistrationTicket passing = intake.submit(week(3), 2L, 10L);
+        when(registrationServices.registerSkierToCourse(any(), eq(1L), any()))
+                .thenThrow(new IllegalStateException("boom"));
+        when(registrationServices.registerSkierToCourse(any(), eq(2L), any()))
+                .thenReturn(RegistrationResult.of(RegistrationStatus.DUPLICATE));
+
+        // When
+        intake.drain();
+
+        // Then
+        assertEquals(TicketStatus.FAILED, intake.retrieveTicket(failing.getTicketId()).getStatus());
+        assertEquals(TicketStatus.DONE, intake.retrieveTicket(passing.getTicketId()).getStatus());
+        assertEquals(RegistrationStatus.DUPLICATE, intake.retrieveTicket(passing.getTicketId()).getResult().getStatus());
+        verify(registrationServices, times(2)).registerSkierToCourse(any(), any(), any());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void purgeTickets_ShouldKeepTicketsStillQueued() {
+        // Given
+        intake = new RegistrationIntakeServicesImpl(registrationServices, transactionManager, meterRegistry,
+                2, 1, 10, Duration.ZERO);
+        RegistrationTicket queued = intake.submit(week(3), 1L, 10L);
+
+        // When
+        intake.purgeTickets();
+
+        // Then
+        assertNotNull(intake.retrieveTicket(queued.getTicketId()));
+    }
+}
@@ -0,0 +1,395 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import tn.esprit.spring.caches.SkierCache;
+import tn.esprit.spring.dto.GroupRegistration;
+import tn.esprit.spring.dto.GroupRegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationStatus;
+import tn.esprit.spring.entities.*;
+import tn.esprit.spring.events.SeatReleasedEvent;
+import tn.esprit.spring.indexes.CourseWeekOccupancy;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
+import tn.esprit.spring.indexes.ReferenceCatalog;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.IWaitlistEntryRepository;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationServicesImplTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private ISkierRepository skierRepository;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @Mock
+    private ICourseCapacityServices courseCapacityServices;
+
+    @Mock
+    private InstructorWeekIndex instructorWeekIndex;
+
+    @Mock
+    private SkierCache skierCache;
+
+    @Mock
+    private CourseWeekOccupancy courseWeekOccupancy;
+
+    @Mock
+    private ReferenceCatalog referenceCatalog;
+
+    @Mock
+    private IWaitlistEntryRepository waitlistRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private RegistrationServicesImpl registrationServices;
+
+    private Skier skier;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        skier = new Skier();
+        skier.setNumSkier(1L);
+        skier.setDateOfBirth(LocalDate.now().minusYears(30));
+
+        course = new Course();
+        course.setNumCourse(10L);
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+    }
+
+    private WaitlistEntry waitingEntry() {
+        return new WaitlistEntry(5L, 1L, 10L, 3, WaitlistStatus.WAITING, LocalDateTime.now(), null, null);
+    }
+
+    private void givenInsertedAs(long numRegistration) {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            KeyHolder keyHolder = invocation.getArgument(1);
+            keyHolder.getKeyList().add(Map.of("GENERATED_KEY", numRegistration));
+            return 1;
+        });
+    }
+
+    @Test
+    void registerSkierToCourse_WhenAlreadyRegistered_ShouldReportDuplicateFromTheUniqueKey() {
+        // Given
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenReturn(0);
+
+        // When
+        RegistrationResult result = registrationServices.registerSkierToCourse(new Registration(null, 3, null, null), 1L, 10L);
+
+        // Then
+        assertEquals(RegistrationStatus.DUPLICATE, result.getStatus());
+        verify(courseCapacityServices, never()).reserveSeat(any(), anyInt());
+        verifyNoInteractions(courseWeekOccupancy, waitlistRepository);
+    }
+
+    @Test
+    void registerSkierToCourse_WithASeat_ShouldInsertThroughTheUniqueKey() {
+        // Given
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        givenInsertedAs(42L);
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(true);
+
+        // When
+        RegistrationResult result = registrationServices.registerSkierToCourse(new Registration(null, 3, null, null), 1L, 10L);
+
+        // Then
+        assertEquals(RegistrationStatus.REGISTERED, result.getStatus());
+        assertEquals(42L, result.getRegistration().getNumRegistration());
+        verify(registrationRepository, never()).save(any());
+        verify(courseWeekOccupancy).registrationAdded(42L, 10L, 3);
+        InOrder order = inOrder(courseCapacityServices, jdbcTemplate);
+        order.verify(courseCapacityServices).ensureCounter(course, 3);
+        order.verify(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+    }
+
+    @Test
+    void assignRegistrationToCourse_ShouldMoveTheSeatToTheNewCourse() {
+        // Given
+        Course previous = new Course();
+        previous.setNumCourse(11L);
+        previous.setTypeCourse(TypeCourse.COLLECTIVE_CHILDREN);
+        Registration registration = new Registration(42L, 3, skier, previous);
+        when(registrationRepository.findById(42L)).thenReturn(Optional.of(registration));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(true);
+        when(registrationRepository.save(registration)).thenReturn(registration);
+
+        // When
+        Registration saved = registrationServices.assignRegistrationToCourse(42L, 10L);
+
+        // Then
+        assertEquals(course, saved.getCourse());
+        verify(courseCapacityServices).releaseSeat(previous, 3);
+        verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
+        verify(courseWeekOccupancy).registrationMoved(42L, 11L, 10L, 3);
+    }
+
+    @Test
+    void assignRegistrationToCourse_WhenTheWeekIsFull_ShouldLeaveTheRegistrationInItsCourse() {
+        // Given
+        Registration registration = new Registration(42L, 3, skier, null);
+        when(registrationRepository.findById(42L)).thenReturn(Optional.of(registration));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(false);
+
+        // When
+        Registration saved = registrationServices.assignRegistrationToCourse(42L, 10L);
+
+        // Then
+        assertNull(saved);
+        assertNull(registration.getCourse());
+        verify(registrationRepository, never()).save(any());
+        verifyNoInteractions(courseWeekOccupancy);
+    }
+
+    @Test
+    void registerSkierToCourse_WhenFull_ShouldWaitlistOnce() {
+        // Given
+        Registration registration = new Registration(null, 3, null, null);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        givenInsertedAs(42L);
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(false);
+        when(waitlistRepository.findFirstByNumSkierAndNumCourseAndNumWeekAndStatus(1L, 10L, 3, WaitlistStatus.WAITING))
+                .thenReturn(Optional.empty());
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RegistrationResult result = registrationServices.registerSkierToCourse(registration, 1L, 10L);
+
+        // Then
+        assertEquals(RegistrationStatus.WAITLISTED, result.getStatus());
+        assertEquals(WaitlistStatus.WAITING, result.getWaitlistEntry().getStatus());
+        assertEquals(3, result.getWaitlistEntry().getNumWeek());
+        verify(jdbcTemplate).update(RegistrationServicesImpl.DELETE_REGISTRATION, 42L);
+        verifyNoInteractions(courseWeekOccupancy);
+    }
+
+    @Test
+    void addRegistrationAndAssignToSkierAndCourse_WhenFull_ShouldStillReturnNull() {
+        // Given
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        givenInsertedAs(42L);
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(false);
+        when(waitlistRepository.findFirstByNumSkierAndNumCourseAndNumWeekAndStatus(1L, 10L, 3, WaitlistStatus.WAITING))
+                .thenReturn(Optional.of(waitingEntry()));
+
+        // When / Then
+        assertNull(registrationServices.addRegistrationAndAssignToSkierAndCourse(new Registration(null, 3, null, null), 1L, 10L));
+        verify(waitlistRepository, never()).save(any());
+    }
+
+    @Test
+    void promoteNextWaiting_ShouldRegisterTheHeadOfTheList() {
+        // Given
+        WaitlistEntry entry = waitingEntry();
+        when(waitlistRepository.findFirstByNumCourseAndNumWeekAndStatusOrderByNumEntryAsc(10L, 3, WaitlistStatus.WAITING))
+                .thenReturn(Optional.of(entry));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(true);
+        when(waitlistRepository.changeStatus(5L, WaitlistStatus.WAITING, WaitlistStatus.REGISTERED)).thenReturn(1);
+        givenInsertedAs(42L);
+        when(waitlistRepository.save(entry)).thenReturn(entry);
+
+        // When
+        WaitlistEntry promoted = registrationServices.promoteNextWaiting(10L, 3);
+
+        // Then
+        assertEquals(WaitlistStatus.REGISTERED, promoted.getStatus());
+        assertEquals(42L, promoted.getNumRegistration());
+        verify(courseWeekOccupancy).registrationAdded(42L, 10L, 3);
+    }
+
+    @Test
+    void promoteNextWaiting_WhenStillFull_ShouldLeaveTheEntryWaiting() {
+        // Given
+        when(waitlistRepository.findFirstByNumCourseAndNumWeekAndStatusOrderByNumEntryAsc(10L, 3, WaitlistStatus.WAITING))
+                .thenReturn(Optional.of(waitingEntry()));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(false);
+
+        // When / Then
+        assertNull(registrationServices.promoteNextWaiting(10L, 3));
+        verify(waitlistRepository, never()).changeStatus(any(), any(), any());
+    }
+
+    @Test
+    void promoteNextWaiting_WhenClaimedElsewhere_ShouldGiveTheSeatBack() {
+        // Given
+        when(waitlistRepository.findFirstByNumCourseAndNumWeekAndStatusOrderByNumEntryAsc(10L, 3, WaitlistStatus.WAITING))
+                .thenReturn(Optional.of(waitingEntry()));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(true);
+        when(waitlistRepository.changeStatus(5L, WaitlistStatus.WAITING, WaitlistStatus.REGISTERED)).thenReturn(0);
+
+        // When
+        registrationServices.promoteNextWaiting(10L, 3);
+
+        // Then
+        verify(courseCapacityServices).releaseSeat(course, 3);
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+    }
+
+    @Test
+    void promoteNextWaiting_WhenRegisteredMeanwhile_ShouldRejectAndGiveTheSeatBack() {
+        // Given
+        WaitlistEntry entry = waitingEntry();
+        when(waitlistRepository.findFirstByNumCourseAndNumWeekAndStatusOrderByNumEntryAsc(10L, 3, WaitlistStatus.WAITING))
+                .thenReturn(Optional.of(entry));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(course));
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseCapacityServices.reserveSeat(course, 3)).thenReturn(true);
+        when(waitlistRepository.changeStatus(5L, WaitlistStatus.WAITING, WaitlistStatus.REGISTERED)).thenReturn(1);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenReturn(0);
+        when(waitlistRepository.save(entry)).thenReturn(entry);
+
+        // When
+        WaitlistEntry rejected = registrationServices.promoteNextWaiting(10L, 3);
+
+        // Then
+        assertEquals(WaitlistStatus.REJECTED, rejected.getStatus());
+        verify(courseCapacityServices).releaseSeat(course, 3);
+    }
+
+    @Test
+    void removeRegistration_ShouldReleaseTheSeatForTheWaitlist() {
+        // Given
+        Registration registration = new Registration(42L, 3, skier, course);
+        when(registrationRepository.findById(42L)).thenReturn(Optional.of(registration));
+
+        // When
+        registrationServices.removeRegistration(42L);
+
+        // Then
+        verify(registrationRepository).delete(registration);
+        verify(courseCapacityServices).releaseSeat(course, 3);
+        verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
+        verify(courseWeekOccupancy).registrationMoved(42L, 10L, null, 3);
+    }
+
+    @Test
+    void registerGroup_ShouldCheckInMemoryReserveInBulkAndReportEachRow() {
+        // Given
+        Skier child = new Skier();
+        child.setNumSkier(2L);
+        child.setDateOfBirth(LocalDate.now().minusYears(10));
+        Skier booked = new Skier();
+        booked.setNumSkier(3L);
+        booked.setDateOfBirth(LocalDate.now().minusYears(40));
+        Skier late = new Skier();
+        late.setNumSkier(4L);
+        late.setDateOfBirth(LocalDate.now().minusYears(20));
+        when(skierRepository.findAllById(any())).thenReturn(List.of(skier, child, booked, late));
+        when(courseRepository.findAllById(any())).thenReturn(List.of(course));
+        when(registrationRepository.findSkierCourseWeeks(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{3L, 10L, 3, 30L}))
+                .thenReturn(List.<Object[]>of(new Object[]{3L, 10L, 3, 30L}, new Object[]{1L, 10L, 3, 31L}));
+        when(courseCapacityServices.reserveSeats(course, 3, 2)).thenReturn(1);
+        when(jdbcTemplate.batchUpdate(eq(RegistrationServicesImpl.INSERT_REGISTRATION_ROW),
+                argThat((Collection<GroupRegistrationOutcome> rows) -> rows.size() == 1), eq(500), any()))
+                .thenReturn(new int[][]{{1}});
+
+        // When
+        List<GroupRegistrationOutcome> outcomes = registrationServices.registerGroup(Arrays.asList(
+                new GroupRegistration(1L, 10L, 3),
+                new GroupRegistration(2L, 10L, 3),
+                new GroupRegistration(3L, 10L, 3),
+                new GroupRegistration(4L, 10L, 3),
+                new GroupRegistration(99L, 10L, 3)));
+
+        // Then
+        assertEquals(List.of(RegistrationStatus.REGISTERED, RegistrationStatus.AGE_NOT_ALLOWED, RegistrationStatus.DUPLICATE,
+                        RegistrationStatus.FULL, RegistrationStatus.NOT_FOUND),
+                outcomes.stream().map(GroupRegistrationOutcome::getStatus).toList());
+        verify(courseCapacityServices, never()).reserveSeat(any(), anyInt());
+        verify(registrationRepository, never()).save(any());
+        verify(courseWeekOccupancy).registrationAdded(31L, 10L, 3);
+    }
+
+    @Test
+    void registerGroup_WhenRegisteredConcurrently_ShouldReportDuplicateAndGiveTheSeatBack() {
+        // Given
+        when(skierRepository.findAllById(any())).thenReturn(List.of(skier));
+        when(courseRepository.findAllById(any())).thenReturn(List.of(course));
+        when(registrationRepository.findSkierCourseWeeks(any(), any())).thenReturn(List.of());
+        when(courseCapacityServices.reserveSeats(course, 3, 1)).thenReturn(1);
+        when(jdbcTemplate.batchUpdate(eq(RegistrationServicesImpl.INSERT_REGISTRATION_ROW), anyCollection(), eq(500), any()))
+                .thenReturn(new int[][]{{0}});
+
+        // When
+        List<GroupRegistrationOutcome> outcomes = registrationServices.registerGroup(List.of(new GroupRegistration(1L, 10L, 3)));
+
+        // Then
+        assertEquals(RegistrationStatus.DUPLICATE, outcomes.get(0).getStatus());
+        verify(courseCapacityServices).releaseSeat(course, 3);
+        verifyNoInteractions(courseWeekOccupancy);
+    }
+
+    @Test
+    void registerGroup_WhenTheBatchIsRewritten_ShouldRollBackInsteadOfReportingRegistered() {
+        // Given : rewriteBatchedStatements=true answers SUCCESS_NO_INFO for every row
+        when(skierRepository.findAllById(any())).thenReturn(List.of(skier));
+        when(courseRepository.findAllById(any())).thenReturn(List.of(course));
+        when(registrationRepository.findSkierCourseWeeks(any(), any())).thenReturn(List.of());
+        when(courseCapacityServices.reserveSeats(course, 3, 1)).thenReturn(1);
+        when(jdbcTemplate.batchUpdate(eq(RegistrationServicesImpl.INSERT_REGISTRATION_ROW), anyCollection(), eq(500), any()))
+                .thenReturn(new int[][]{{Statement.SUCCESS_NO_INFO}});
+
+        // When / Then
+        List<GroupRegistration> rows = List.of(new GroupRegistration(1L, 10L, 3));
+        assertThrows(IllegalStateException.class, () -> registrationServices.registerGroup(rows));
+        verifyNoInteractions(courseWeekOccupancy, instructorWeekIndex, skierCache);
+    }
+
+    @Test
+    void insertRegistrationRow_ShouldHaveNoValuesClauseForTheDriverToRewrite() {
+        // Connector/J only folds batched inserts carrying a VALUES clause into one multi-row insert
+        assertFalse(RegistrationServicesImpl.INSERT_REGISTRATION_ROW.toLowerCase().contains("values"));
+    }
+}
@@ -0,0 +1,93 @@
+package tn.esprit.spring.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.indexes.GatePassIndex;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SkierImportServicesImplTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GatePassIndex gatePassIndex;
+
+    @InjectMocks
+    private SkierImportServicesImpl skierImportService;
+
+    @Test
+    void importSkiersFromCsv_ShouldPersistValidRowsAndReportTheOthers() throws Exception {
+        // Given
+        String csv = "firstName,lastName,dateOfBirth,city,typeSub,startDate,price\n"
+                + "John,Doe,1990-05-15,Tunis,ANNUAL,2024-12-01,500\n"
+                + "Jane,Doe,1992-01-01,Sousse,WEEKLY,2024-12-01,50\n"
+                + "Jim,Doe,1995-03-03,Sfax,MONTHLY,,80\n";
+
+        // When
+        SkierImportReport report = skierImportService.importSkiersFromCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(3, report.getReceived());
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getErrors().size());
+        assertEquals(2, report.getErrors().get(0).getRow());
+        assertEquals(3, report.getErrors().get(1).getRow());
+
+        ArgumentCaptor<Skier> skierCaptor = ArgumentCaptor.forClass(Skier.class);
+        verify(entityManager, times(1)).persist(skierCaptor.capture());
+        assertEquals(LocalDate.of(2025, 12, 1), skierCaptor.getValue().getSubscription().getEndDate());
+        verify(entityManager, times(1)).flush();
+    }
+
+    @Test
+    void importSkiersFromCsv_WithQuotedFields_ShouldKeepTheirCommasAndQuotes() throws Exception {
+        // Given
+        String csv = "firstName,lastName,dateOfBirth,city,typeSub,startDate,price\n"
+                + "John,\"O\"\"Brien\",1990-05-15,\"Tunis, TN\",ANNUAL,2024-12-01,500\n"
+                + "Jane,Doe,1992-01-01,\"Sousse\nCorniche\",MONTHLY,2024-12-01,50\n";
+
+        // When
+        SkierImportReport report = skierImportService.importSkiersFromCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(2, report.getReceived());
+        assertEquals(2, report.getImported());
+        ArgumentCaptor<Skier> skierCaptor = ArgumentCaptor.forClass(Skier.class);
+        verify(entityManager, times(2)).persist(skierCaptor.capture());
+        assertEquals("O\"Brien", skierCaptor.getAllValues().get(0).getLastName());
+        assertEquals("Tunis, TN", skierCaptor.getAllValues().get(0).getCity());
+        assertEquals("Sousse\nCorniche", skierCaptor.getAllValues().get(1).getCity());
+    }
+
+    @Test
+    void splitCsvRecord_ShouldWaitForTheClosingQuote() {
+        assertEquals(List.of("a", "b, c", ""), SkierImportServicesImpl.splitCsvRecord("a,\"b, c\","));
+        assertNull(SkierImportServicesImpl.splitCsvRecord("a,\"b"));
+    }
+}
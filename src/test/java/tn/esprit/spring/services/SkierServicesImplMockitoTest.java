@@ -5,7 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import tn.esprit.spring.caches.SkierCache;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.indexes.CourseWeekOccupancy;
+import tn.esprit.spring.indexes.GatePassIndex;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
+import tn.esprit.spring.indexes.PistePopularityIndex;
 import tn.esprit.spring.repositories.*;
 
 import java.time.LocalDate;
@@ -41,6 +47,27 @@ class SkierServicesImplMockitoTest {
     @Mock
     private ISubscriptionRepository subscriptionRepository;
 
+    @Mock
+    private InstructorWeekIndex instructorWeekIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SkierCache skierCache;
+
+    @Mock
+    private GatePassIndex gatePassIndex;
+
+    @Mock
+    private PistePopularityIndex pistePopularityIndex;
+
+    @Mock
+    private CourseWeekOccupancy courseWeekOccupancy;
+
+    @Mock
+    private ICourseCapacityServices courseCapacityServices;
+
     @InjectMocks
     private SkierServicesImpl skierService;
 
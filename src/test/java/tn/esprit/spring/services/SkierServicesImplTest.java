@@ -3,10 +3,21 @@ package tn.esprit.spring.services;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprit.spring.caches.SkierCache;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierPisteAssignment;
+import tn.esprit.spring.dto.SkierPisteAssignmentReport;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.indexes.CourseWeekOccupancy;
+import tn.esprit.spring.indexes.GatePassIndex;
+import tn.esprit.spring.indexes.InstructorWeekIndex;
+import tn.esprit.spring.indexes.PistePopularityIndex;
 import tn.esprit.spring.repositories.*;
 
 import java.time.LocalDate;
@@ -14,6 +25,8 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +47,30 @@ class SkierServicesImplTest {
     @Mock
     private ISubscriptionRepository subscriptionRepository;
 
+    @Mock
+    private InstructorWeekIndex instructorWeekIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SkierCache skierCache;
+
+    @Mock
+    private GatePassIndex gatePassIndex;
+
+    @Mock
+    private PistePopularityIndex pistePopularityIndex;
+
+    @Mock
+    private CourseWeekOccupancy courseWeekOccupancy;
+
+    @Mock
+    private ICourseCapacityServices courseCapacityServices;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private SkierServicesImpl skierService;
 
@@ -140,6 +177,47 @@ class SkierServicesImplTest {
         verify(skierRepository, times(1)).save(testSkier);
     }
 
+    @Test
+    void addSkierAndAssignToCourse_ShouldCountTheRegistrationsInTheIndexes() {
+        // Given
+        Registration registration = new Registration(null, 5, null, null);
+        testSkier.getRegistrations().add(registration);
+        when(skierRepository.save(any(Skier.class))).thenReturn(testSkier);
+        when(courseRepository.getReferenceById(1L)).thenReturn(testCourse);
+        when(courseCapacityServices.reserveSeat(testCourse, 5)).thenReturn(true);
+        when(registrationRepository.save(registration)).thenAnswer(invocation -> {
+            registration.setNumRegistration(7L);
+            return registration;
+        });
+
+        // When
+        Skier result = skierService.addSkierAndAssignToCourse(testSkier, 1L);
+
+        // Then
+        assertEquals(testCourse, registration.getCourse());
+        verify(instructorWeekIndex).registrationAdded(1L, 5);
+        verify(courseWeekOccupancy).registrationAdded(7L, 1L, 5);
+        verify(gatePassIndex).skierSaved(result);
+    }
+
+    @Test
+    void addSkierAndAssignToCourse_WhenTheWeekIsFull_ShouldLeaveTheRegistrationOut() {
+        // Given
+        Registration registration = new Registration(null, 5, null, null);
+        testSkier.getRegistrations().add(registration);
+        when(skierRepository.save(any(Skier.class))).thenReturn(testSkier);
+        when(courseRepository.getReferenceById(1L)).thenReturn(testCourse);
+        when(courseCapacityServices.reserveSeat(testCourse, 5)).thenReturn(false);
+
+        // When
+        Skier result = skierService.addSkierAndAssignToCourse(testSkier, 1L);
+
+        // Then
+        assertTrue(result.getRegistrations().isEmpty());
+        verify(registrationRepository, never()).save(any());
+        verifyNoInteractions(courseWeekOccupancy);
+    }
+
     @Test
     void assignSkierToSubscription_ShouldAssignSuccessfully() {
         // Given
@@ -203,6 +281,95 @@ class SkierServicesImplTest {
         verify(skierRepository, times(1)).findById(skierId);
     }
 
+    @Test
+    void retrieveSkier_WhenCached_ShouldNotHitRepository() {
+        // Given
+        when(skierCache.get(1L)).thenReturn(testSkier);
+
+        // When
+        Skier result = skierService.retrieveSkier(1L);
+
+        // Then
+        assertEquals(testSkier, result);
+        verifyNoInteractions(skierRepository);
+    }
+
+    @Test
+    void removeSkier_ShouldDecrementThePistesOfTheSkier() {
+        // Given
+        when(skierRepository.findPisteIdsBySkier(1L)).thenReturn(List.of(3L, 4L));
+
+        // When
+        skierService.removeSkier(1L);
+
+        // Then
+        verify(pistePopularityIndex).excursionRemoved(1L, 3L);
+        verify(pistePopularityIndex).excursionRemoved(1L, 4L);
+    }
+
+    @Test
+    void removeSkier_ShouldInvalidateCachedSkier() {
+        // When
+        skierService.removeSkier(1L);
+
+        // Then
+        verify(skierCache).invalidate(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void assignSkiersToPistes_ShouldBatchDistinctPairsWithoutLoadingEntities() {
+        // Given
+        List<SkierPisteAssignment> assignments = Arrays.asList(
+                new SkierPisteAssignment(1L, 1L),
+                new SkierPisteAssignment(1L, 2L),
+                new SkierPisteAssignment(1L, 1L),
+                new SkierPisteAssignment(null, 3L));
+        when(jdbcTemplate.batchUpdate(eq(SkierServicesImpl.INSERT_EXCURSION), anyCollection(), anyInt(), any()))
+                .thenReturn(new int[][]{{1, 0}});
+        when(pisteRepository.countSkiersByPiste(anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 7L}, new Object[]{2L, 3L}));
+
+        // When
+        SkierPisteAssignmentReport report = skierService.assignSkiersToPistes(assignments);
+
+        // Then
+        ArgumentCaptor<Collection<?>> pairs = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(SkierServicesImpl.INSERT_EXCURSION), pairs.capture(), anyInt(), any());
+        assertEquals(2, pairs.getValue().size());
+        assertEquals(4, report.getReceived());
+        assertEquals(2, report.getDistinct());
+        assertEquals(1, report.getInserted());
+        verify(pistePopularityIndex).skiersCounted(1L, 7L);
+        verify(pistePopularityIndex).skiersCounted(2L, 3L);
+        verifyNoInteractions(skierRepository);
+        verify(pisteRepository, never()).findById(any());
+    }
+
+    @Test
+    void hasValidPass_WhenIndexAnswers_ShouldNotHitRepository() {
+        // Given
+        when(gatePassIndex.isValid(eq(1L), any(LocalDate.class))).thenReturn(true);
+
+        // When / Then
+        assertTrue(skierService.hasValidPass(1L));
+        verifyNoInteractions(skierRepository);
+    }
+
+    @Test
+    void hasValidPass_WhenIndexNotReady_ShouldCheckSubscriptionDates() {
+        // Given
+        testSubscription.setStartDate(LocalDate.now().minusDays(1));
+        testSubscription.setEndDate(LocalDate.now().plusDays(1));
+        when(gatePassIndex.isValid(anyLong(), any(LocalDate.class))).thenReturn(null);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(testSkier));
+        when(skierRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertTrue(skierService.hasValidPass(1L));
+        assertFalse(skierService.hasValidPass(2L));
+    }
+
     @Test
     void retrieveSkier_WithNonExistentId_ShouldReturnNull() {
         // Given
@@ -231,4 +398,21 @@ class SkierServicesImplTest {
         assertEquals(expectedSkiers, result);
         verify(skierRepository, times(1)).findBySubscription_TypeSub(subscriptionType);
     }
-}
\ No newline at end of file
+
+    @Test
+    void retrieveSkierSummaries_ShouldUseSingleProjectionQuery() {
+        // Given
+        SkierDTO summary = new SkierDTO(1L, "John", "Doe", LocalDate.of(1990, 5, 15), "Tunis",
+                1L, TypeSubscription.ANNUAL, LocalDate.now(), LocalDate.now().plusYears(1));
+        when(skierRepository.findAllSkierDTOs()).thenReturn(List.of(summary));
+
+        // When
+        List<SkierDTO> result = skierService.retrieveSkierSummaries();
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("John", result.get(0).getFirstName());
+        verify(skierRepository, times(1)).findAllSkierDTOs();
+        verifyNoMoreInteractions(skierRepository);
+    }
+}
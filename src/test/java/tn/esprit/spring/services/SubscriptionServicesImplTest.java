@@ -0,0 +1,178 @@
+package tn.esprit.spring.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.events.SubscriptionSavedEvent;
+import tn.esprit.spring.indexes.RecurringRevenueAggregates;
+import tn.esprit.spring.indexes.SubscriptionIntervalIndex;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionServicesImplTest {
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private ExpiredSubscriptionProcessor expiredSubscriptionProcessor;
+
+    @Mock
+    private RecurringRevenueAggregates revenueAggregates;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SubscriptionIntervalIndex intervalIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private SubscriptionServicesImpl subscriptionServices;
+
+    private Subscription testSubscription;
+
+    @BeforeEach
+    void setUp() {
+        testSubscription = new Subscription(1L, LocalDate.of(2025, 1, 1), null, 60f, TypeSubscription.MONTHLY);
+    }
+
+    @Test
+    void getSubscriptionByTypeAfter_WithoutCursor_ShouldReadTheFirstPage() {
+        // Given
+        when(subscriptionRepository.findByTypeSubAfter(TypeSubscription.MONTHLY, LocalDate.EPOCH, 0L,
+                PageRequest.of(0, KeysetPaging.DEFAULT_LIMIT))).thenReturn(List.of(testSubscription));
+
+        // When
+        List<Subscription> page = subscriptionServices.getSubscriptionByTypeAfter(TypeSubscription.MONTHLY, null, null, null);
+
+        // Then
+        assertEquals(List.of(testSubscription), page);
+    }
+
+    @Test
+    void getSubscriptionByTypeAfter_ShouldContinueAfterTheCursorWithinTheMaxLimit() {
+        // Given
+        LocalDate afterDate = LocalDate.of(2025, 1, 1);
+        when(subscriptionRepository.findByTypeSubAfter(TypeSubscription.ANNUAL, afterDate, 42L,
+                PageRequest.of(0, KeysetPaging.MAX_LIMIT))).thenReturn(List.of());
+
+        // When
+        List<Subscription> page = subscriptionServices.getSubscriptionByTypeAfter(TypeSubscription.ANNUAL, afterDate, 42L, 5000);
+
+        // Then
+        assertTrue(page.isEmpty());
+        verify(subscriptionRepository).findByTypeSubAfter(TypeSubscription.ANNUAL, afterDate, 42L,
+                PageRequest.of(0, KeysetPaging.MAX_LIMIT));
+    }
+
+    @Test
+    void streamSubscriptionsByType_ShouldHandEveryRowInOrderAndClearPeriodically() {
+        // Given
+        int total = KeysetPaging.STREAM_CLEAR_INTERVAL * 2 + 1;
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Subscription> rows = LongStream.rangeClosed(1, total)
+                .mapToObj(numSub -> new Subscription(numSub, LocalDate.of(2025, 1, 1), null, 60f, TypeSubscription.MONTHLY))
+                .onClose(() -> closed.set(true));
+        when(subscriptionRepository.streamByTypeSub(TypeSubscription.MONTHLY)).thenReturn(rows);
+        List<Long> received = new ArrayList<>();
+
+        // When
+        subscriptionServices.streamSubscriptionsByType(TypeSubscription.MONTHLY, subscription -> received.add(subscription.getNumSub()));
+
+        // Then
+        assertEquals(LongStream.rangeClosed(1, total).boxed().toList(), received);
+        verify(entityManager, times(2)).clear();
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void streamSubscriptionsByType_WhenTheConsumerFails_ShouldCloseTheStream() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(subscriptionRepository.streamByTypeSub(TypeSubscription.ANNUAL))
+                .thenReturn(Stream.of(testSubscription).onClose(() -> closed.set(true)));
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> subscriptionServices.streamSubscriptionsByType(TypeSubscription.ANNUAL,
+                subscription -> {
+                    throw new IllegalStateException("client gone");
+                }));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void addSubscription_ShouldSetTheEndDateAndPublishANewSubscription() {
+        // Given
+        when(subscriptionRepository.save(testSubscription)).thenReturn(testSubscription);
+
+        // When
+        Subscription saved = subscriptionServices.addSubscription(testSubscription);
+
+        // Then
+        assertEquals(LocalDate.of(2025, 2, 1), saved.getEndDate());
+        ArgumentCaptor<SubscriptionSavedEvent> event = ArgumentCaptor.forClass(SubscriptionSavedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertNull(event.getValue().getPrevious());
+    }
+
+    @Test
+    void updateSubscription_ShouldPublishTheStateBeforeTheSave() {
+        // Given
+        Subscription current = new Subscription(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), 60f, TypeSubscription.MONTHLY);
+        Subscription update = new Subscription(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1), 600f, TypeSubscription.ANNUAL);
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(subscriptionRepository.save(update)).thenAnswer(invocation -> {
+            current.setPrice(600f);
+            current.setTypeSub(TypeSubscription.ANNUAL);
+            return current;
+        });
+
+        // When
+        subscriptionServices.updateSubscription(update);
+
+        // Then
+        ArgumentCaptor<SubscriptionSavedEvent> event = ArgumentCaptor.forClass(SubscriptionSavedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(TypeSubscription.MONTHLY, event.getValue().getPrevious().getTypeSub());
+        assertEquals(60f, event.getValue().getPrevious().getPrice());
+    }
+
+    @Test
+    void retrieveSubscriptionsActiveBetween_ShouldUseTheIndexOnceReady() {
+        // Given
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        when(intervalIndex.isReady()).thenReturn(true, false);
+        when(intervalIndex.activeDuring(from, to)).thenReturn(List.of(testSubscription));
+        when(subscriptionRepository.findActiveBetween(from, to)).thenReturn(List.of());
+
+        // When / Then
+        assertEquals(List.of(testSubscription), subscriptionServices.retrieveSubscriptionsActiveBetween(from, to));
+        assertEquals(List.of(), subscriptionServices.retrieveSubscriptionsActiveBetween(from, to));
+        verify(subscriptionRepository, times(1)).findActiveBetween(any(), any());
+    }
+}